@@ -0,0 +1,34 @@
+package com.maxgarfinkel.suffixTree;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so that every score is
+ * reported alongside its allocation rate and the bytes allocated per
+ * operation. Any JMH command line options, such as a benchmark name pattern,
+ * may be given as arguments.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.maxgarfinkel.suffixTree.AllocationBenchmarks Construction
+ * </pre>
+ *
+ * This is the same as passing <code>-prof gc</code> to the benchmarks jar.
+ *
+ * @author Max Garfinkel
+ */
+public final class AllocationBenchmarks {
+
+	private AllocationBenchmarks() {
+	}
+
+	public static void main(String[] args) throws RunnerException,
+			CommandLineOptionException {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,59 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to build a tree over a single sequence, for
+ * random texts over alphabets of different sizes, for English prose and for a
+ * highly repetitive text. Dividing the length by the score gives the
+ * construction throughput in items per millisecond.
+ *
+ * @author Max Garfinkel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class ConstructionBenchmark {
+
+	@Param({ "4", "36", "256", Texts.NATURAL, Texts.REPETITIVE })
+	public String text;
+
+	@Param({ "10000", "100000" })
+	public int length;
+
+	private char[] chars;
+	private List<Character> items;
+
+	@Setup
+	public void setUp() throws IOException {
+		chars = Texts.create(text, length);
+		items = Texts.box(chars);
+	}
+
+	@Benchmark
+	public SuffixTree<Character, List<Character>> genericTree() {
+		return new SuffixTree<Character, List<Character>>(items);
+	}
+
+	@Benchmark
+	public CharSuffixTree charTree() {
+		return new CharSuffixTree(new String(chars));
+	}
+}
@@ -0,0 +1,93 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of walking a {@link Cursor} down a tree built over
+ * English prose, and of the queries built on top of it. Half of the patterns
+ * are taken from the text, so they are found, and half are random, so most
+ * of them fall off the tree after a few items.
+ *
+ * @author Max Garfinkel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class CursorBenchmark {
+
+	private static final int PATTERNS = 1024;
+
+	@Param({ "4", "16" })
+	public int patternLength;
+
+	private SuffixTree<Character, List<Character>> tree;
+	private List<List<Character>> patterns;
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		char[] text = Texts.natural(200000);
+		tree = new SuffixTree<Character, List<Character>>(Texts.box(text));
+		tree.annotate();
+		Random random = new Random(42);
+		char[] noise = Texts.random(36, PATTERNS * patternLength, 7);
+		patterns = new ArrayList<List<Character>>(PATTERNS);
+		for (int i = 0; i < PATTERNS; i++) {
+			char[] pattern = new char[patternLength];
+			if (i % 2 == 0)
+				System.arraycopy(text, random.nextInt(text.length - patternLength),
+						pattern, 0, patternLength);
+			else
+				System.arraycopy(noise, i * patternLength, pattern, 0,
+						patternLength);
+			patterns.add(Texts.box(pattern));
+		}
+	}
+
+	private List<Character> nextPattern() {
+		next = (next + 1) & (PATTERNS - 1);
+		return patterns.get(next);
+	}
+
+	@Benchmark
+	public int cursorWalk() {
+		Cursor<Character, List<Character>> cursor = new Cursor<Character, List<Character>>(
+				tree);
+		int walked = 0;
+		for (Character item : nextPattern()) {
+			if (!cursor.proceedTo(item))
+				break;
+			walked++;
+		}
+		return walked;
+	}
+
+	@Benchmark
+	public boolean contains() {
+		return tree.contains(nextPattern());
+	}
+
+	@Benchmark
+	public int countOccurrences() {
+		return tree.countOccurrences(nextPattern());
+	}
+}
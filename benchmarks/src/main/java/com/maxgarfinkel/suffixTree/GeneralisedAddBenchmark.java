@@ -0,0 +1,64 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of adding many short sequences to a generalised
+ * tree, one {@link Word} per word of English prose, which is how the library
+ * is used to index a document.
+ *
+ * @author Max Garfinkel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class GeneralisedAddBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int words;
+
+	private List<Word> sequences;
+	private List<String> strings;
+
+	@Setup
+	public void setUp() throws IOException {
+		strings = Texts.words().subList(0, words);
+		sequences = new ArrayList<Word>(words);
+		for (String word : strings)
+			sequences.add(new Word(word));
+	}
+
+	@Benchmark
+	public SuffixTree<Character, Word> genericTree() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		for (Word word : sequences)
+			tree.add(word);
+		return tree;
+	}
+
+	@Benchmark
+	public CharSuffixTree charTree() {
+		CharSuffixTree tree = new CharSuffixTree();
+		for (String word : strings)
+			tree.add(word);
+		return tree;
+	}
+}
@@ -0,0 +1,142 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the texts the benchmarks build trees from. Every text is produced
+ * from a fixed seed, so that runs can be compared with each other.
+ *
+ * @author Max Garfinkel
+ */
+final class Texts {
+
+	static final String NATURAL = "natural";
+	static final String REPETITIVE = "repetitive";
+
+	private static final String BOOK = "Russle_problems_of_philosophy.txt";
+
+	private Texts() {
+	}
+
+	/**
+	 * Creates a text of the given kind.
+	 *
+	 * @param kind
+	 *            The size of a random alphabet, such as "4", "36" or "256",
+	 *            or {@link #NATURAL} for English prose or {@link #REPETITIVE}
+	 *            for a text made of a few short repeated runs.
+	 * @param length
+	 *            The length of the text.
+	 * @return The text.
+	 * @throws IOException
+	 *             if the natural text cannot be read.
+	 */
+	static char[] create(String kind, int length) throws IOException {
+		if (NATURAL.equals(kind))
+			return natural(length);
+		if (REPETITIVE.equals(kind))
+			return repetitive(length);
+		return random(Integer.parseInt(kind), length, 42);
+	}
+
+	/**
+	 * Creates a text of items drawn uniformly from the first
+	 * <code>alphabetSize</code> of <code>0-9a-z</code> or, for larger
+	 * alphabets, from the characters numbered from zero.
+	 */
+	static char[] random(int alphabetSize, int length, long seed) {
+		char[] symbols = new char[alphabetSize];
+		for (int i = 0; i < alphabetSize; i++) {
+			if (alphabetSize <= 36)
+				symbols[i] = i < 10 ? (char) ('0' + i) : (char) ('a' + i - 10);
+			else
+				symbols[i] = (char) i;
+		}
+		Random random = new Random(seed);
+		char[] text = new char[length];
+		for (int i = 0; i < length; i++)
+			text[i] = symbols[random.nextInt(alphabetSize)];
+		return text;
+	}
+
+	/**
+	 * Creates a text which repeats a short run with the odd change, the worst
+	 * case for the number of suffixes each step of the construction has to
+	 * carry over.
+	 */
+	static char[] repetitive(int length) {
+		Random random = new Random(42);
+		char[] run = "abcabcabd".toCharArray();
+		char[] text = new char[length];
+		for (int i = 0; i < length; i++)
+			text[i] = run[i % run.length];
+		for (int i = 0; i < length / 1000; i++)
+			text[random.nextInt(length)] = 'x';
+		return text;
+	}
+
+	/**
+	 * Reads English prose, repeating it if the book is shorter than the
+	 * length asked for.
+	 */
+	static char[] natural(int length) throws IOException {
+		StringBuilder book = new StringBuilder();
+		for (String line : lines())
+			book.append(line).append('\n');
+		char[] text = new char[length];
+		for (int i = 0; i < length; i++)
+			text[i] = book.charAt(i % book.length());
+		return text;
+	}
+
+	/**
+	 * Splits the English prose into words.
+	 *
+	 * @return The non empty words of the book in order.
+	 * @throws IOException
+	 *             if the book cannot be read.
+	 */
+	static List<String> words() throws IOException {
+		List<String> words = new ArrayList<String>();
+		for (String line : lines()) {
+			for (String token : line.split("\\s+")) {
+				if (token.length() > 0)
+					words.add(token);
+			}
+		}
+		return words;
+	}
+
+	private static List<String> lines() throws IOException {
+		InputStream in = Texts.class.getResourceAsStream(BOOK);
+		if (in == null)
+			throw new IOException("Missing benchmark resource " + BOOK);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+				"UTF-8"));
+		try {
+			List<String> lines = new ArrayList<String>();
+			String line;
+			while ((line = reader.readLine()) != null)
+				lines.add(line);
+			return lines;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Boxes a text into the list form taken by {@link SuffixTree}.
+	 */
+	static List<Character> box(char[] text) {
+		List<Character> list = new ArrayList<Character>(text.length);
+		for (char c : text)
+			list.add(c);
+		return list;
+	}
+}
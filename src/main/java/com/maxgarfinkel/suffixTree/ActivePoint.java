@@ -15,6 +15,7 @@ class ActivePoint<T,S extends Iterable<T>> {
 	private Edge<T,S> activeEdge;
 	private int activeLength;
 	private final Node<T,S> root;
+	private BuildCounters counters = null;
 
 	/**
 	 * Initialize the active point to the root of a suffix tree. This sets the
@@ -29,6 +30,17 @@ class ActivePoint<T,S extends Iterable<T>> {
 		this.root = root;
 	}
 
+	/**
+	 * Sets the counters to add suffix link traversals and walk down steps
+	 * to.
+	 * 
+	 * @param counters
+	 *            The counters, or null to count nothing.
+	 */
+	void setCounters(BuildCounters counters) {
+		this.counters = counters;
+	}
+
 	/**
 	 * Sets the active point to a new node, edge, length tripple.
 	 * 
@@ -133,14 +145,15 @@ class ActivePoint<T,S extends Iterable<T>> {
 			activeEdge = null;
 			activeLength = 0;
 		} else if (activeNode == root) {
-			Object item = suffix.getStart();
-			activeEdge = root.getEdgeStarting(item);
+			activeEdge = root.getEdgeStartingCode(suffix.getStartCode());
 			decrementLength();
 			fixActiveEdgeAfterSuffixLink(suffix);
 			if (activeLength == 0)
 				activeEdge = null;
 		} else if (activeNode.hasSuffixLink()) {
 			activeNode = activeNode.getSuffixLink();
+			if (counters != null)
+				counters.suffixLinksFollowed++;
 			findTrueActiveEdge();
 			fixActiveEdgeAfterSuffixLink(suffix);
 			if (activeLength == 0)
@@ -163,8 +176,10 @@ class ActivePoint<T,S extends Iterable<T>> {
 		while (activeEdge != null && activeLength > activeEdge.getLength()) {
 			activeLength = activeLength - activeEdge.getLength();
 			activeNode = activeEdge.getTerminal();
-			Object item = suffix.getItemXFromEnd(activeLength + 1);
-			activeEdge = activeNode.getEdgeStarting(item);
+			activeEdge = activeNode.getEdgeStartingCode(suffix
+					.getCodeXFromEnd(activeLength + 1));
+			if (counters != null)
+				counters.walkDownSteps++;
 		}
 		resetActivePointToTerminal();
 	}
@@ -175,8 +190,7 @@ class ActivePoint<T,S extends Iterable<T>> {
 	 */
 	private void findTrueActiveEdge() {
 		if (activeEdge != null) {
-			Object item = activeEdge.getStartItem();
-			activeEdge = activeNode.getEdgeStarting(item);
+			activeEdge = activeNode.getEdgeStartingCode(activeEdge.getStartCode());
 		}
 	}
 
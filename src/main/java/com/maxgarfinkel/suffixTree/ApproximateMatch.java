@@ -0,0 +1,80 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * A place at which a pattern occurs within a number of errors in one of the
+ * sequences of a {@link SuffixTree}, as found by {@link ApproximateSearch}.
+ *
+ * @author Max Garfinkel
+ */
+public final class ApproximateMatch implements Comparable<ApproximateMatch> {
+
+	private final int sequenceId;
+	private final int offset;
+	private final int length;
+	private final int distance;
+
+	ApproximateMatch(int sequenceId, int offset, int length, int distance) {
+		this.sequenceId = sequenceId;
+		this.offset = offset;
+		this.length = length;
+		this.distance = distance;
+	}
+
+	/**
+	 * @return The id of the sequence, which is the number of sequences added
+	 *         to the tree before it.
+	 */
+	public int getSequenceId() {
+		return sequenceId;
+	}
+
+	/**
+	 * @return The index within the sequence of the first item of the match.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return The number of items of the sequence matched, which differs
+	 *         from the length of the pattern if items were inserted or
+	 *         deleted.
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return The number of errors between the pattern and the matched
+	 *         items.
+	 */
+	public int getDistance() {
+		return distance;
+	}
+
+	public int compareTo(ApproximateMatch o) {
+		if (sequenceId != o.sequenceId)
+			return sequenceId < o.sequenceId ? -1 : 1;
+		return offset < o.offset ? -1 : offset == o.offset ? 0 : 1;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == null || o.getClass() != this.getClass())
+			return false;
+		ApproximateMatch other = (ApproximateMatch) o;
+		return other.sequenceId == sequenceId && other.offset == offset
+				&& other.length == length && other.distance == distance;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * (31 * sequenceId + offset) + length) + distance;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + sequenceId + ", " + offset + ", " + length + ", "
+				+ distance + ")";
+	}
+}
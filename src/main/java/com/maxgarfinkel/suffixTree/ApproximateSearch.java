@@ -0,0 +1,372 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds the places at which a pattern occurs in a {@link SuffixTree} with up
+ * to a given number of errors.
+ *
+ * The tree is walked depth first from the root, and for every item along the
+ * way one column of the dynamic programming table comparing the pattern with
+ * the path is computed. With edit distance only the cells within the error
+ * budget of the diagonal are computed. A branch is left as soon as no cell of
+ * its column is within the budget, as no longer path can then match. Each
+ * start position is reported once, with the fewest errors of any match
+ * starting there and the shortest such match. The subtrees below the root
+ * are searched in parallel on a fork join pool.
+ *
+ * As with {@link SuffixTree#locate(Iterable)}, a sequence equal to one added
+ * before it is not reported separately. With edit distance every position
+ * matches when the number of errors allowed is at least the length of the
+ * pattern. The tree must not be changed during a search.
+ *
+ * @author Max Garfinkel
+ *
+ * @param <I>
+ *            The type of the item within the sequence.
+ * @param <S>
+ *            The sequence type, which must iterate over items of type
+ *            <code>I</code>
+ */
+public class ApproximateSearch<I, S extends Iterable<I>> {
+
+	/**
+	 * The way errors between the pattern and the sequences are counted.
+	 */
+	public enum Distance {
+		/**
+		 * Counts items which differ. Matches are as long as the pattern.
+		 */
+		HAMMING,
+		/**
+		 * Counts the items substituted, inserted or deleted.
+		 */
+		LEVENSHTEIN
+	}
+
+	private static final int SURPLUS_TASKS = 2;
+
+	private final Distance distance;
+	private final int maxErrors;
+	private final int maxResults;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a search which runs in the common fork join pool.
+	 *
+	 * @param distance
+	 *            The way errors are counted.
+	 * @param maxErrors
+	 *            The most errors a match may have.
+	 * @param maxResults
+	 *            The most matches to return. Which matches are returned when
+	 *            there are more is not specified.
+	 */
+	public ApproximateSearch(Distance distance, int maxErrors, int maxResults) {
+		this(distance, maxErrors, maxResults, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a search which runs in the given pool.
+	 *
+	 * @param distance
+	 *            The way errors are counted.
+	 * @param maxErrors
+	 *            The most errors a match may have.
+	 * @param maxResults
+	 *            The most matches to return. Which matches are returned when
+	 *            there are more is not specified.
+	 * @param pool
+	 *            The pool to search in.
+	 * @throws IllegalArgumentException
+	 *             if maxErrors or maxResults is negative.
+	 */
+	public ApproximateSearch(Distance distance, int maxErrors, int maxResults,
+			ForkJoinPool pool) {
+		if (maxErrors < 0)
+			throw new IllegalArgumentException("maxErrors must not be negative.");
+		if (maxResults < 0)
+			throw new IllegalArgumentException("maxResults must not be negative.");
+		if (distance == null)
+			throw new NullPointerException();
+		this.distance = distance;
+		this.maxErrors = maxErrors;
+		this.maxResults = maxResults;
+		this.pool = pool;
+	}
+
+	/**
+	 * Finds the places at which the pattern occurs in the tree.
+	 *
+	 * @param tree
+	 *            The tree to search.
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The matches ordered by sequence id and then offset.
+	 */
+	public List<ApproximateMatch> search(SuffixTree<I, S> tree, S pattern) {
+		Sequence<I, S> sequence = tree.getSequence();
+		List<Integer> codes = new ArrayList<Integer>();
+		for (I item : pattern)
+			codes.add(sequence.lookup(item));
+		int[] items = new int[codes.size()];
+		for (int i = 0; i < items.length; i++)
+			items[i] = codes.get(i);
+		if (maxResults == 0)
+			return new ArrayList<ApproximateMatch>();
+		Search search = new Search(tree.getRoot(), sequence, items);
+		List<ApproximateMatch> matches = pool.invoke(search.new Walk(null, 0,
+				search.firstColumn(), Search.NO_MATCH, 0));
+		if (matches.size() > maxResults)
+			matches = new ArrayList<ApproximateMatch>(matches.subList(0, maxResults));
+		Collections.sort(matches);
+		return matches;
+	}
+
+	/**
+	 * The state shared by the tasks of one search.
+	 */
+	private final class Search {
+
+		static final int NO_MATCH = Integer.MAX_VALUE;
+
+		private final Node<I, S> root;
+		private final Sequence<I, S> sequence;
+		private final int[] pattern;
+		private final int limit;
+		private final AtomicInteger found = new AtomicInteger();
+
+		Search(Node<I, S> root, Sequence<I, S> sequence, int[] pattern) {
+			this.root = root;
+			this.sequence = sequence;
+			this.pattern = pattern;
+			this.limit = maxErrors + 1;
+		}
+
+		/**
+		 * @return The column for the empty path. With edit distance, cell i
+		 *         holds the errors between the first i items of the pattern
+		 *         and the path, capped at one more than the budget, and is
+		 *         preceded by a spare cell which is always over the budget.
+		 *         With Hamming distance, the only cell holds the number of
+		 *         mismatches.
+		 */
+		int[] firstColumn() {
+			if (distance == Distance.HAMMING)
+				return new int[1];
+			int[] column = new int[pattern.length + 2];
+			column[0] = limit;
+			for (int i = 0; i <= pattern.length; i++)
+				column[i + 1] = Math.min(i, limit);
+			return column;
+		}
+
+		/**
+		 * Walks one edge and the subtree below it.
+		 */
+		private final class Walk extends RecursiveTask<List<ApproximateMatch>> {
+
+			private static final long serialVersionUID = 1L;
+
+			private final Edge<I, S> edge;
+			private final int depth;
+			private final int[] column;
+			private final int best;
+			private final int bestLength;
+
+			/**
+			 * @param edge
+			 *            The edge to walk, or null for the children of the
+			 *            root.
+			 * @param depth
+			 *            The number of items on the path above the edge.
+			 * @param column
+			 *            The column for the path above the edge, which the
+			 *            walk may overwrite.
+			 * @param best
+			 *            The fewest errors of any match along the path above
+			 *            the edge, or NO_MATCH.
+			 * @param bestLength
+			 *            The length of the shortest match with that many
+			 *            errors.
+			 */
+			Walk(Edge<I, S> edge, int depth, int[] column, int best,
+					int bestLength) {
+				this.edge = edge;
+				this.depth = depth;
+				this.column = column;
+				this.best = best;
+				this.bestLength = bestLength;
+			}
+
+			@Override
+			protected List<ApproximateMatch> compute() {
+				List<ApproximateMatch> matches = new ArrayList<ApproximateMatch>();
+				if (edge == null) {
+					int empty = pattern.length == 0
+							|| distance == Distance.LEVENSHTEIN
+							&& pattern.length <= maxErrors ? pattern.length
+							: NO_MATCH;
+					children(root, 0, column, empty, 0, matches);
+				} else {
+					walk(edge, depth, column, best, bestLength, matches);
+				}
+				return matches;
+			}
+		}
+
+		/**
+		 * Walks the children of a node, forking a task for each while the
+		 * pool is short of work and walking them in this thread otherwise.
+		 */
+		private void children(Node<I, S> node, int depth, int[] column,
+				int best, int bestLength, List<ApproximateMatch> matches) {
+			List<Walk> forked = new ArrayList<Walk>();
+			for (Edge<I, S> child : node) {
+				if (found.get() >= maxResults)
+					break;
+				if (ForkJoinTask.getSurplusQueuedTaskCount() < SURPLUS_TASKS) {
+					Walk walk = new Walk(child, depth, column.clone(), best,
+							bestLength);
+					walk.fork();
+					forked.add(walk);
+				} else {
+					walk(child, depth, column.clone(), best, bestLength, matches);
+				}
+			}
+			for (Walk walk : forked)
+				matches.addAll(walk.join());
+		}
+
+		private void walk(Edge<I, S> edge, int depth, int[] column, int best,
+				int bestLength, List<ApproximateMatch> matches) {
+			if (found.get() >= maxResults)
+				return;
+			int[] next = distance == Distance.HAMMING ? column : new int[column.length];
+			int length = edge.getLength();
+			for (int i = 0; i < length; i++) {
+				int code = sequence.codeAt(edge.getStart() + i);
+				int at = depth + i + 1;
+				if (code < 0 && at == 1)
+					return;
+				if (code < 0 || at > pattern.length
+						&& distance == Distance.HAMMING) {
+					report(edge, depth, best, bestLength, matches);
+					return;
+				}
+				boolean alive;
+				if (distance == Distance.HAMMING) {
+					if (code != pattern[at - 1])
+						column[0]++;
+					alive = column[0] <= maxErrors && at < pattern.length;
+					if (column[0] <= maxErrors && at == pattern.length) {
+						best = column[0];
+						bestLength = at;
+					}
+				} else {
+					alive = step(column, next, at, code);
+					int[] swap = column;
+					column = next;
+					next = swap;
+					int errors = column[pattern.length + 1];
+					if (errors < best && errors <= maxErrors) {
+						best = errors;
+						bestLength = at;
+					}
+				}
+				if (!alive) {
+					report(edge, depth, best, bestLength, matches);
+					return;
+				}
+			}
+			Node<I, S> terminal = edge.getTerminal();
+			if (terminal == null)
+				report(edge, depth, best, bestLength, matches);
+			else
+				children(terminal, depth + length, column, best, bestLength,
+						matches);
+		}
+
+		/**
+		 * Computes the edit distance column for a path of the given length
+		 * ending with the given item, within the band of cells which can be
+		 * within the budget.
+		 *
+		 * @return True if any cell is within the budget.
+		 */
+		private boolean step(int[] previous, int[] column, int at, int code) {
+			int low = Math.max(0, at - maxErrors);
+			int high = Math.min(pattern.length, at + maxErrors);
+			if (low > high) {
+				column[pattern.length + 1] = limit;
+				return false;
+			}
+			boolean alive = false;
+			column[low] = limit;
+			if (low == 0) {
+				column[1] = Math.min(at, limit);
+				alive = at < limit;
+			}
+			for (int i = Math.max(low, 1); i <= high; i++) {
+				int cost = previous[i] + (pattern[i - 1] == code ? 0 : 1);
+				cost = Math.min(cost, previous[i + 1] + 1);
+				cost = Math.min(cost, column[i] + 1);
+				cost = Math.min(cost, limit);
+				column[i + 1] = cost;
+				if (cost < limit)
+					alive = true;
+			}
+			if (high < pattern.length) {
+				column[high + 2] = limit;
+				column[pattern.length + 1] = limit;
+			}
+			return alive;
+		}
+
+		/**
+		 * Adds a match for every leaf below the given edge if a match was
+		 * found on the path to it.
+		 */
+		private void report(Edge<I, S> edge, int depth, int best,
+				int bestLength, List<ApproximateMatch> matches) {
+			if (best == NO_MATCH)
+				return;
+			Edge<I, S>[] edges = Edge.newArray(16);
+			int[] depths = new int[16];
+			edges[0] = edge;
+			depths[0] = depth;
+			int top = 1;
+			while (top > 0) {
+				Edge<I, S> next = edges[--top];
+				int above = depths[top];
+				Node<I, S> terminal = next.getTerminal();
+				if (terminal == null) {
+					if (found.getAndIncrement() >= maxResults)
+						return;
+					int start = next.getStart() - above;
+					int sequenceId = sequence.getSequenceId(start);
+					matches.add(new ApproximateMatch(sequenceId, start
+							- sequence.getSequenceStart(sequenceId), bestLength,
+							best));
+					continue;
+				}
+				int count = terminal.getEdgeCount();
+				if (top + count > edges.length) {
+					int length = Math.max(edges.length * 2, top + count);
+					edges = Arrays.copyOf(edges, length);
+					depths = Arrays.copyOf(depths, length);
+				}
+				int pushed = terminal.pushEdges(edges, top);
+				Arrays.fill(depths, top, pushed, above + next.getLength());
+				top = pushed;
+			}
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.Arrays;
+
+/**
+ * Searches a {@link SuffixTree} for many patterns at once.
+ * 
+ * The codes the tree gives the items of every pattern are copied into one
+ * flat buffer, and the patterns are sorted by those codes so that patterns
+ * sharing a prefix sit next to each other. Each pattern then resumes the
+ * walk from the point the previous pattern reached at the end of their
+ * common prefix, so a shared prefix is walked once rather than once per
+ * pattern. The walk state for every depth is kept in arrays which are reused
+ * from one pattern to the next.
+ * 
+ * Results are returned in the order the patterns were given. The tree must
+ * not be changed while a search is running.
+ * 
+ * @author Max Garfinkel
+ * 
+ * @param <I>
+ *            The type of the item within the sequence.
+ * @param <S>
+ *            The sequence type, which must iterate over items of type
+ *            <code>I</code>
+ */
+public class BatchSearch<I, S extends Iterable<I>> {
+
+	private static final int CONTAINS = 0;
+	private static final int OCCURRENCES = 1;
+	private static final int SEQUENCES = 2;
+
+	private final SuffixTree<I, S> tree;
+
+	private int[] codes = new int[256];
+	private int[] starts = new int[65];
+	private int count;
+
+	private Node<I, S>[] nodes;
+	private Edge<I, S>[] edges;
+	private int[] lengths;
+
+	/**
+	 * Creates a batch search over the given tree.
+	 * 
+	 * @param tree
+	 *            The tree to search.
+	 */
+	public BatchSearch(SuffixTree<I, S> tree) {
+		this.tree = tree;
+		resizeState(16);
+	}
+
+	/**
+	 * Tests whether each of the given patterns occurs in the tree.
+	 * 
+	 * @param patterns
+	 *            The patterns to search for.
+	 * @return For each pattern in order, true if it occurs.
+	 */
+	public boolean[] contains(Iterable<? extends S> patterns) {
+		int[] found = search(patterns, CONTAINS);
+		boolean[] results = new boolean[found.length];
+		for (int i = 0; i < found.length; i++)
+			results[i] = found[i] != 0;
+		return results;
+	}
+
+	/**
+	 * Counts the occurrences of each of the given patterns, as
+	 * {@link SuffixTree#countOccurrences(Iterable)} does.
+	 * 
+	 * @param patterns
+	 *            The patterns to search for.
+	 * @return The number of occurrences of each pattern, in order.
+	 */
+	public int[] countOccurrences(Iterable<? extends S> patterns) {
+		return search(patterns, OCCURRENCES);
+	}
+
+	/**
+	 * Counts the sequences containing each of the given patterns, as
+	 * {@link SuffixTree#countSequencesContaining(Iterable)} does.
+	 * 
+	 * @param patterns
+	 *            The patterns to search for.
+	 * @return The number of sequences containing each pattern, in order.
+	 */
+	public int[] countSequencesContaining(Iterable<? extends S> patterns) {
+		return search(patterns, SEQUENCES);
+	}
+
+	private int[] search(Iterable<? extends S> patterns, int query) {
+		load(patterns);
+		if (query != CONTAINS)
+			tree.annotate();
+		int[] order = new int[count];
+		for (int i = 0; i < count; i++)
+			order[i] = i;
+		sort(order, new int[count], 0, count);
+
+		int[] results = new int[count];
+		int previous = -1;
+		int reached = 0;
+		for (int pattern : order) {
+			int length = starts[pattern + 1] - starts[pattern];
+			int depth = 0;
+			if (previous >= 0) {
+				int shared = commonPrefix(previous, pattern);
+				boolean previousFailed = reached < starts[previous + 1]
+						- starts[previous];
+				if (previousFailed && shared > reached) {
+					// This pattern fails on the same item as the previous one.
+					previous = pattern;
+					continue;
+				}
+				depth = Math.min(reached, shared);
+			}
+			reached = walk(pattern, depth, length);
+			previous = pattern;
+			if (reached == length)
+				results[pattern] = result(length, query);
+		}
+		return results;
+	}
+
+	/**
+	 * Walks the items of a pattern from the state at the given depth.
+	 * 
+	 * @return The depth reached, which is the length of the pattern if the
+	 *         whole pattern occurs.
+	 */
+	private int walk(int pattern, int depth, int length) {
+		if (length + 1 > lengths.length)
+			resizeState(Math.max(length + 1, lengths.length * 2));
+		Sequence<I, S> sequence = tree.getSequence();
+		int offset = starts[pattern];
+		for (; depth < length; depth++) {
+			int code = codes[offset + depth];
+			Node<I, S> node = nodes[depth];
+			Edge<I, S> edge = edges[depth];
+			int matched = lengths[depth];
+			if (edge != null && matched == edge.getLength()) {
+				node = edge.getTerminal();
+				if (node == null)
+					return depth;
+				edge = null;
+			}
+			if (edge == null) {
+				edge = node.getEdgeStartingCode(code);
+				if (edge == null)
+					return depth;
+				matched = 1;
+			} else if (code == sequence.codeAt(edge.getStart() + matched)) {
+				matched++;
+			} else {
+				return depth;
+			}
+			nodes[depth + 1] = node;
+			edges[depth + 1] = edge;
+			lengths[depth + 1] = matched;
+		}
+		return depth;
+	}
+
+	private int result(int length, int query) {
+		Edge<I, S> edge = edges[length];
+		if (query == CONTAINS)
+			return 1;
+		if (length == 0)
+			return 0;
+		Node<I, S> terminal = edge.getTerminal();
+		if (terminal == null)
+			return 1;
+		return query == OCCURRENCES ? terminal.getLeafCount() : terminal
+				.getSequenceCount();
+	}
+
+	/**
+	 * Copies the codes of the items of every pattern into the buffer. An item
+	 * which does not occur in the tree has the code {@link SymbolTable#NONE},
+	 * which matches nothing.
+	 */
+	private void load(Iterable<? extends S> patterns) {
+		Sequence<I, S> sequence = tree.getSequence();
+		count = 0;
+		int size = 0;
+		for (S pattern : patterns) {
+			for (I item : pattern) {
+				if (size == codes.length)
+					codes = Arrays.copyOf(codes, size * 2);
+				codes[size++] = sequence.lookup(item);
+			}
+			if (count + 2 > starts.length)
+				starts = Arrays.copyOf(starts, starts.length * 2);
+			starts[++count] = size;
+		}
+		nodes[0] = tree.getRoot();
+		edges[0] = null;
+		lengths[0] = 0;
+	}
+
+	private int commonPrefix(int first, int second) {
+		int a = starts[first];
+		int b = starts[second];
+		int length = Math.min(starts[first + 1] - a, starts[second + 1] - b);
+		int i = 0;
+		while (i < length && codes[a + i] == codes[b + i])
+			i++;
+		return i;
+	}
+
+	private int compare(int first, int second) {
+		int a = starts[first];
+		int b = starts[second];
+		int lengthA = starts[first + 1] - a;
+		int lengthB = starts[second + 1] - b;
+		int length = Math.min(lengthA, lengthB);
+		for (int i = 0; i < length; i++) {
+			if (codes[a + i] != codes[b + i])
+				return codes[a + i] < codes[b + i] ? -1 : 1;
+		}
+		return lengthA - lengthB;
+	}
+
+	/**
+	 * Merge sorts a range of pattern indices by the codes of their items.
+	 */
+	private void sort(int[] order, int[] buffer, int from, int to) {
+		if (to - from < 2)
+			return;
+		int middle = (from + to) >>> 1;
+		sort(order, buffer, from, middle);
+		sort(order, buffer, middle, to);
+		if (compare(order[middle - 1], order[middle]) <= 0)
+			return;
+		System.arraycopy(order, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle && compare(buffer[left], buffer[right]) <= 0))
+				order[i] = buffer[left++];
+			else
+				order[i] = buffer[right++];
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void resizeState(int size) {
+		Node<I, S>[] oldNodes = nodes;
+		Edge<I, S>[] oldEdges = edges;
+		int[] oldLengths = lengths;
+		nodes = (Node<I, S>[]) new Node<?, ?>[size];
+		edges = Edge.newArray(size);
+		lengths = new int[size];
+		if (oldNodes != null) {
+			System.arraycopy(oldNodes, 0, nodes, 0, oldNodes.length);
+			System.arraycopy(oldEdges, 0, edges, 0, oldEdges.length);
+			System.arraycopy(oldLengths, 0, lengths, 0, oldLengths.length);
+		}
+	}
+}
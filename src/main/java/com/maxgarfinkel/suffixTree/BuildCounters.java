@@ -0,0 +1,32 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * The running counts of the work done building a {@link SuffixTree}. The
+ * tree, its edges, its nodes and its active point hold no counters unless
+ * a {@link BuildListener} is set, so the only cost of instrumentation when
+ * it is off is a null check at each event.
+ *
+ * @author Max Garfinkel
+ */
+final class BuildCounters {
+
+	long items;
+	long edgeSplits;
+	long leavesCreated;
+	long suffixLinksFollowed;
+	long walkDownSteps;
+	int maxRemainder;
+	long extendNanos;
+	long annotateNanos;
+
+	void remainder(int remaining) {
+		if (remaining > maxRemainder)
+			maxRemainder = remaining;
+	}
+
+	BuildStatistics snapshot() {
+		return new BuildStatistics(items, edgeSplits, leavesCreated,
+				suffixLinksFollowed, walkDownSteps, maxRemainder, extendNanos,
+				annotateNanos);
+	}
+}
@@ -0,0 +1,31 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * Receives the running statistics of a {@link SuffixTree} as it is built,
+ * once set with {@link SuffixTree#setBuildListener(BuildListener)}. Methods
+ * are called on the thread changing or querying the tree, so should return
+ * quickly.
+ *
+ * @author Max Garfinkel
+ */
+public interface BuildListener {
+
+	/**
+	 * Called after a sequence has been added, or a streamed sequence closed.
+	 *
+	 * @param sequenceId
+	 *            The id of the sequence.
+	 * @param statistics
+	 *            The totals since the listener was set.
+	 */
+	void sequenceAdded(int sequenceId, BuildStatistics statistics);
+
+	/**
+	 * Called after the node depths and counts used by queries have been
+	 * computed, which happens at the first such query after a change.
+	 *
+	 * @param statistics
+	 *            The totals since the listener was set.
+	 */
+	void annotated(BuildStatistics statistics);
+}
@@ -0,0 +1,95 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A {@link BuildListener} which keeps the latest statistics of a tree and
+ * publishes them over JMX, for example:
+ *
+ * <pre>
+ * BuildMonitor monitor = new BuildMonitor();
+ * monitor.register(new ObjectName(&quot;com.maxgarfinkel.suffixTree:type=Build,name=index&quot;));
+ * tree.setBuildListener(monitor);
+ * </pre>
+ *
+ * @author Max Garfinkel
+ */
+public class BuildMonitor implements BuildListener, BuildMonitorMBean {
+
+	private static final BuildStatistics NONE = new BuildCounters().snapshot();
+
+	private volatile BuildStatistics latest = NONE;
+	private volatile long sequencesAdded = 0;
+
+	/**
+	 * Registers this monitor with the platform MBean server.
+	 *
+	 * @param name
+	 *            The name to register it under.
+	 * @throws JMException
+	 *             if it cannot be registered, for example because the name
+	 *             is taken.
+	 */
+	public void register(ObjectName name) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+	}
+
+	public void sequenceAdded(int sequenceId, BuildStatistics statistics) {
+		sequencesAdded++;
+		latest = statistics;
+	}
+
+	public void annotated(BuildStatistics statistics) {
+		latest = statistics;
+	}
+
+	/**
+	 * @return The statistics last received.
+	 */
+	public BuildStatistics getStatistics() {
+		return latest;
+	}
+
+	public long getSequencesAdded() {
+		return sequencesAdded;
+	}
+
+	public long getItems() {
+		return latest.getItems();
+	}
+
+	public long getEdgeSplits() {
+		return latest.getEdgeSplits();
+	}
+
+	public long getLeavesCreated() {
+		return latest.getLeavesCreated();
+	}
+
+	public long getSuffixLinksFollowed() {
+		return latest.getSuffixLinksFollowed();
+	}
+
+	public long getWalkDownSteps() {
+		return latest.getWalkDownSteps();
+	}
+
+	public int getMaxRemainder() {
+		return latest.getMaxRemainder();
+	}
+
+	public long getExtendNanos() {
+		return latest.getExtendNanos();
+	}
+
+	public long getAnnotateNanos() {
+		return latest.getAnnotateNanos();
+	}
+
+	public double getItemsPerSecond() {
+		return latest.getItemsPerSecond();
+	}
+}
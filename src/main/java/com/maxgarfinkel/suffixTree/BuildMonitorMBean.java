@@ -0,0 +1,30 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * The management interface of {@link BuildMonitor}. Each attribute is the
+ * value of the same name in the latest {@link BuildStatistics}.
+ *
+ * @author Max Garfinkel
+ */
+public interface BuildMonitorMBean {
+
+	long getSequencesAdded();
+
+	long getItems();
+
+	long getEdgeSplits();
+
+	long getLeavesCreated();
+
+	long getSuffixLinksFollowed();
+
+	long getWalkDownSteps();
+
+	int getMaxRemainder();
+
+	long getExtendNanos();
+
+	long getAnnotateNanos();
+
+	double getItemsPerSecond();
+}
@@ -0,0 +1,109 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * The work done building a {@link SuffixTree} since a {@link BuildListener}
+ * was set on it. Instances are snapshots and do not change.
+ *
+ * @author Max Garfinkel
+ */
+public final class BuildStatistics {
+
+	private final long items;
+	private final long edgeSplits;
+	private final long leavesCreated;
+	private final long suffixLinksFollowed;
+	private final long walkDownSteps;
+	private final int maxRemainder;
+	private final long extendNanos;
+	private final long annotateNanos;
+
+	BuildStatistics(long items, long edgeSplits, long leavesCreated,
+			long suffixLinksFollowed, long walkDownSteps, int maxRemainder,
+			long extendNanos, long annotateNanos) {
+		this.items = items;
+		this.edgeSplits = edgeSplits;
+		this.leavesCreated = leavesCreated;
+		this.suffixLinksFollowed = suffixLinksFollowed;
+		this.walkDownSteps = walkDownSteps;
+		this.maxRemainder = maxRemainder;
+		this.extendNanos = extendNanos;
+		this.annotateNanos = annotateNanos;
+	}
+
+	/**
+	 * @return The number of items, counting terminals, added to the tree.
+	 */
+	public long getItems() {
+		return items;
+	}
+
+	/**
+	 * @return The number of edges split to make a new internal node.
+	 */
+	public long getEdgeSplits() {
+		return edgeSplits;
+	}
+
+	/**
+	 * @return The number of leaf edges created, one for each suffix made
+	 *         explicit.
+	 */
+	public long getLeavesCreated() {
+		return leavesCreated;
+	}
+
+	/**
+	 * @return The number of times the active point followed a suffix link.
+	 */
+	public long getSuffixLinksFollowed() {
+		return suffixLinksFollowed;
+	}
+
+	/**
+	 * @return The number of edges the active point skipped down after moving
+	 *         to a shorter suffix.
+	 */
+	public long getWalkDownSteps() {
+		return walkDownSteps;
+	}
+
+	/**
+	 * @return The most suffixes waiting to be inserted at any one step. A
+	 *         large value means the input has long repeats.
+	 */
+	public int getMaxRemainder() {
+		return maxRemainder;
+	}
+
+	/**
+	 * @return The time spent adding items to the tree, in nanoseconds.
+	 */
+	public long getExtendNanos() {
+		return extendNanos;
+	}
+
+	/**
+	 * @return The time spent computing node depths and counts for queries,
+	 *         in nanoseconds.
+	 */
+	public long getAnnotateNanos() {
+		return annotateNanos;
+	}
+
+	/**
+	 * @return The items added per second of time spent adding them, or zero
+	 *         if none have been.
+	 */
+	public double getItemsPerSecond() {
+		return extendNanos == 0 ? 0 : items * 1e9 / extendNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "BuildStatistics[items=" + items + ", edgeSplits=" + edgeSplits
+				+ ", leavesCreated=" + leavesCreated + ", suffixLinksFollowed="
+				+ suffixLinksFollowed + ", walkDownSteps=" + walkDownSteps
+				+ ", maxRemainder=" + maxRemainder + ", extendNanos="
+				+ extendNanos + ", annotateNanos=" + annotateNanos + "]";
+	}
+}
@@ -0,0 +1,143 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A generalised suffix tree over <code>byte</code> items, for example raw
+ * binary data or encoded text. The text of every sequence is held in pages of
+ * <code>byte</code> values and no item is ever boxed.
+ *
+ * Every one of the 256 byte values may appear in a sequence, so no value can
+ * be reserved for the terminal. Instead the position of each terminal is
+ * flagged in a bit map alongside the text.
+ *
+ * @author Max Garfinkel
+ */
+public class ByteSuffixTree extends PrimitiveSuffixTree {
+
+	private final Pages text;
+	private final Pages terminals;
+	private int length;
+
+	/**
+	 * Constructs an empty suffix tree on the heap.
+	 */
+	public ByteSuffixTree() {
+		this(TreeStorage.heap());
+	}
+
+	/**
+	 * Constructs a suffix tree in the given storage. If the storage already
+	 * holds a ByteSuffixTree it is reopened.
+	 *
+	 * @param storage
+	 *            The storage for the tree.
+	 */
+	public ByteSuffixTree(TreeStorage storage) {
+		super(storage, 2);
+		text = new Pages(storage, "text", 1);
+		terminals = new Pages(storage, "terminals", 4);
+		length = getTextLength();
+		ensureCapacity(length);
+	}
+
+	/**
+	 * Constructs a suffix tree containing the given sequence.
+	 *
+	 * @param sequence
+	 *            The first sequence to add.
+	 */
+	public ByteSuffixTree(byte[] sequence) {
+		this();
+		add(sequence);
+	}
+
+	/**
+	 * Opens a tree saved with {@link #save(File)}. The tree answers queries
+	 * straight from the mapped file, and no sequences can be added to it.
+	 *
+	 * @param file
+	 *            The saved tree.
+	 * @return The tree.
+	 * @throws IOException
+	 *             if the file cannot be read or does not hold a saved tree.
+	 * @throws IllegalArgumentException
+	 *             if the file holds a different kind of tree.
+	 */
+	public static ByteSuffixTree load(File file) throws IOException {
+		return new ByteSuffixTree(TreeStorage.open(file));
+	}
+
+	/**
+	 * Add a sequence to the suffix tree. It is immediately processed and
+	 * added to the tree.
+	 *
+	 * @param sequence
+	 *            A sequence to be added.
+	 * @return The id of the sequence, which is the number of sequences added
+	 *         before it.
+	 */
+	public int add(byte[] sequence) {
+		checkWritable();
+		int from = length;
+		ensureCapacity(length + sequence.length + 1);
+		for (byte item : sequence)
+			text.setByte(length++, item);
+		terminals.setInt(length >>> 5, terminals.getInt(length >>> 5)
+				| 1 << length);
+		text.setByte(length++, (byte) 0);
+		return sequenceAdded(from, length - 1);
+	}
+
+	/**
+	 * Tests whether any sequence in the tree contains the given pattern.
+	 *
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return True if the pattern occurs in the tree.
+	 */
+	public boolean contains(byte[] pattern) {
+		return walk(pattern) != null;
+	}
+
+	/**
+	 * Retrieves the ids of the sequences which contain the given pattern.
+	 *
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The ids in ascending order, empty if there are none.
+	 */
+	public int[] sequencesContaining(byte[] pattern) {
+		PrimitiveCursor cursor = walk(pattern);
+		return cursor == null ? new int[0] : cursor.getSequenceIds();
+	}
+
+	private PrimitiveCursor walk(byte[] pattern) {
+		PrimitiveCursor cursor = new PrimitiveCursor(this);
+		for (byte item : pattern) {
+			if (!cursor.proceedTo(item & 0xFF))
+				return null;
+		}
+		return cursor;
+	}
+
+	@Override
+	void addTextSections(List<TreeFile.Section> sections) {
+		sections.add(new TreeFile.Section(text, length));
+		sections.add(new TreeFile.Section(terminals, (length + 31) >>> 5));
+	}
+
+	@Override
+	int symbolAt(int position) {
+		if ((terminals.getInt(position >>> 5) & 1 << position) != 0)
+			return terminal(sequenceAt(position));
+		return text.getByte(position) & 0xFF;
+	}
+
+	private void ensureCapacity(int capacity) {
+		text.ensureCapacity(capacity);
+		terminals.ensureCapacity((capacity + 31) >>> 5);
+	}
+}
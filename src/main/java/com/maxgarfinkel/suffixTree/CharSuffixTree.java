@@ -0,0 +1,171 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A generalised suffix tree over <code>char</code> items. The text of every
+ * sequence is held in pages of <code>char</code> values and no item is ever
+ * boxed.
+ *
+ * The non-character U+FFFF is reserved to mark the end of each
+ * sequence, and may not appear in the sequences themselves.
+ *
+ * @author Max Garfinkel
+ */
+public class CharSuffixTree extends PrimitiveSuffixTree {
+
+	/**
+	 * The value stored in the text in place of a sequence terminal.
+	 */
+	static final char TERMINAL = '\uFFFF';
+
+	private final Pages text;
+	private int length;
+
+	/**
+	 * Constructs an empty suffix tree on the heap.
+	 */
+	public CharSuffixTree() {
+		this(TreeStorage.heap());
+	}
+
+	/**
+	 * Constructs a suffix tree in the given storage. If the storage already
+	 * holds a CharSuffixTree it is reopened.
+	 *
+	 * @param storage
+	 *            The storage for the tree.
+	 */
+	public CharSuffixTree(TreeStorage storage) {
+		super(storage, 1);
+		text = new Pages(storage, "text", 2);
+		length = getTextLength();
+		text.ensureCapacity(length);
+	}
+
+	/**
+	 * Constructs a suffix tree containing the given sequence.
+	 *
+	 * @param sequence
+	 *            The first sequence to add.
+	 */
+	public CharSuffixTree(CharSequence sequence) {
+		this();
+		add(sequence);
+	}
+
+	/**
+	 * Opens a tree saved with {@link #save(File)}. The tree answers queries
+	 * straight from the mapped file, and no sequences can be added to it.
+	 *
+	 * @param file
+	 *            The saved tree.
+	 * @return The tree.
+	 * @throws IOException
+	 *             if the file cannot be read or does not hold a saved tree.
+	 * @throws IllegalArgumentException
+	 *             if the file holds a different kind of tree.
+	 */
+	public static CharSuffixTree load(File file) throws IOException {
+		return new CharSuffixTree(TreeStorage.open(file));
+	}
+
+	/**
+	 * Add a sequence to the suffix tree. It is immediately processed and
+	 * added to the tree.
+	 *
+	 * @param sequence
+	 *            A sequence to be added.
+	 * @return The id of the sequence, which is the number of sequences added
+	 *         before it.
+	 * @throws IllegalArgumentException
+	 *             if the sequence contains the reserved terminal character.
+	 */
+	public int add(CharSequence sequence) {
+		checkWritable();
+		int from = length;
+		ensureCapacity(length + sequence.length() + 1);
+		for (int i = 0; i < sequence.length(); i++)
+			append(sequence.charAt(i), from);
+		text.setChar(length++, TERMINAL);
+		return sequenceAdded(from, length - 1);
+	}
+
+	/**
+	 * Add a sequence to the suffix tree. It is immediately processed and
+	 * added to the tree.
+	 *
+	 * @param sequence
+	 *            A sequence to be added.
+	 * @return The id of the sequence.
+	 * @throws IllegalArgumentException
+	 *             if the sequence contains the reserved terminal character.
+	 */
+	public int add(char[] sequence) {
+		checkWritable();
+		int from = length;
+		ensureCapacity(length + sequence.length + 1);
+		for (char item : sequence)
+			append(item, from);
+		text.setChar(length++, TERMINAL);
+		return sequenceAdded(from, length - 1);
+	}
+
+	/**
+	 * Tests whether any sequence in the tree contains the given pattern.
+	 *
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return True if the pattern occurs in the tree.
+	 */
+	public boolean contains(CharSequence pattern) {
+		return walk(pattern) != null;
+	}
+
+	/**
+	 * Retrieves the ids of the sequences which contain the given pattern.
+	 *
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The ids in ascending order, empty if there are none.
+	 */
+	public int[] sequencesContaining(CharSequence pattern) {
+		PrimitiveCursor cursor = walk(pattern);
+		return cursor == null ? new int[0] : cursor.getSequenceIds();
+	}
+
+	private PrimitiveCursor walk(CharSequence pattern) {
+		PrimitiveCursor cursor = new PrimitiveCursor(this);
+		for (int i = 0; i < pattern.length(); i++) {
+			if (!cursor.proceedTo(pattern.charAt(i)))
+				return null;
+		}
+		return cursor;
+	}
+
+	@Override
+	void addTextSections(List<TreeFile.Section> sections) {
+		sections.add(new TreeFile.Section(text, length));
+	}
+
+	@Override
+	int symbolAt(int position) {
+		char item = text.getChar(position);
+		return item == TERMINAL ? terminal(sequenceAt(position)) : item;
+	}
+
+	private void ensureCapacity(int capacity) {
+		text.ensureCapacity(capacity);
+	}
+
+	private void append(char item, int sequenceStart) {
+		if (item == TERMINAL) {
+			length = sequenceStart;
+			throw new IllegalArgumentException(
+					"The character U+FFFF is reserved as the sequence terminal.");
+		}
+		text.setChar(length++, item);
+	}
+}
@@ -0,0 +1,98 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table mapping the first symbol of an edge to the
+ * child node the edge leads to. It is used by {@link NodeStore} for nodes
+ * with too many children to scan.
+ *
+ * @author Max Garfinkel
+ */
+final class ChildTable {
+
+	private static final int EMPTY = -1;
+
+	private int[] keys;
+	private int[] values;
+	private int size = 0;
+	private int mask;
+
+	ChildTable() {
+		keys = new int[32];
+		values = new int[32];
+		Arrays.fill(keys, EMPTY);
+		mask = keys.length - 1;
+	}
+
+	/**
+	 * Retrieves the child for a symbol.
+	 *
+	 * @param symbol
+	 *            The first symbol of the child's edge, zero or greater.
+	 * @param missing
+	 *            The value to return if there is no such child.
+	 * @return The child node, or <code>missing</code>.
+	 */
+	int get(int symbol, int missing) {
+		int slot = slot(symbol);
+		while (true) {
+			int current = keys[slot];
+			if (current == symbol)
+				return values[slot];
+			if (current == EMPTY)
+				return missing;
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Adds or replaces the child for a symbol.
+	 *
+	 * @param symbol
+	 *            The first symbol of the child's edge, zero or greater.
+	 * @param child
+	 *            The child node.
+	 */
+	void put(int symbol, int child) {
+		int slot = slot(symbol);
+		while (keys[slot] != EMPTY && keys[slot] != symbol)
+			slot = (slot + 1) & mask;
+		values[slot] = child;
+		if (keys[slot] == EMPTY) {
+			keys[slot] = symbol;
+			if (++size * 2 > keys.length)
+				resize();
+		}
+	}
+
+	/**
+	 * @return The number of entries in the table.
+	 */
+	int size() {
+		return size;
+	}
+
+	private void resize() {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		values = new int[oldKeys.length * 2];
+		Arrays.fill(keys, EMPTY);
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] == EMPTY)
+				continue;
+			int slot = slot(oldKeys[i]);
+			while (keys[slot] != EMPTY)
+				slot = (slot + 1) & mask;
+			keys[slot] = oldKeys[i];
+			values[slot] = oldValues[i];
+		}
+	}
+
+	private int slot(int symbol) {
+		int hash = symbol * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
@@ -5,7 +5,7 @@ import java.util.Iterator;
 import org.apache.log4j.Logger;
 
 class Edge<T, S extends Iterable<T>> implements Iterable<T> {
-	private final int start;
+	private int start;
 	private int end = -1;
 	private final Node<T,S> parentNode;
 	private final Sequence<T,S> sequence;
@@ -13,7 +13,7 @@ class Edge<T, S extends Iterable<T>> implements Iterable<T> {
 	private Node<T, S> terminal = null;
 	private SuffixTree<T,S> tree = null;
 	
-	private Logger logger = Logger.getLogger(this.getClass());
+	private static final Logger logger = Logger.getLogger(Edge.class);
 
 	/**
 	 * Create a new <code>Edge</code> object.
@@ -36,6 +36,41 @@ class Edge<T, S extends Iterable<T>> implements Iterable<T> {
 		this.tree = tree;
 	}
 
+	/**
+	 * Create a new <code>Edge</code> object with a fixed end, or an open end
+	 * if <code>end</code> is -1.
+	 * 
+	 * @param start
+	 *            The position in the master sequence of the first item in this
+	 *            suffix.
+	 * @param end
+	 *            The position after the last item, or -1.
+	 * @param parent
+	 *            The parent {@link Node}
+	 * @param sequence
+	 *            The master sequence which the {@link SuffixTree} indexes.
+	 * @param tree
+	 *            The master {@link SuffixTree} containing the root element
+	 *            which this edge is a child of.
+	 */
+	Edge(int start, int end, Node<T,S> parent, Sequence<T,S> sequence, SuffixTree<T,S> tree) {
+		this(start, parent, sequence, tree);
+		this.end = end;
+	}
+
+	/**
+	 * Creates an array of edges, which Java cannot do directly for a generic
+	 * type.
+	 * 
+	 * @param length
+	 *            The length of the array.
+	 * @return An array of nulls.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T, S extends Iterable<T>> Edge<T,S>[] newArray(int length) {
+		return (Edge<T,S>[]) new Edge<?,?>[length];
+	}
+
 	/**
 	 * Checks to see if the edge starts with the given item.
 	 * 
@@ -44,7 +79,7 @@ class Edge<T, S extends Iterable<T>> implements Iterable<T> {
 	 * @return True if this edge starts with item. False if not.
 	 */
 	boolean isStarting(Object item) {
-		return sequence.getItem(start).equals(item);
+		return sequence.lookup(item) == getStartCode();
 	}
 
 	/**
@@ -54,22 +89,21 @@ class Edge<T, S extends Iterable<T>> implements Iterable<T> {
 	 *            The suffix to insert.
 	 * @param activePoint
 	 *            The active point to insert it at.
-	 * @return
+	 * @return True if the remainder of the suffix must still be inserted
+	 *         during this step. False if the step is complete.
 	 */
-	void insert(Suffix<T,S> suffix, ActivePoint<T,S> activePoint) {
-		Object item = suffix.getEndItem();
-		Object nextItem = getItemAt(activePoint.getLength());
-		if (item.equals(nextItem)) {
+	boolean insert(Suffix<T,S> suffix, ActivePoint<T,S> activePoint) {
+		if (suffix.getEndCode() == getCodeAt(activePoint.getLength())) {
+			if (tree.isNotFirstInsert() && activePoint.getNode() != tree.getRoot())
+				tree.setSuffixLink(activePoint.getNode());
 			activePoint.incrementLength();
+			return false;
 		} else {
 			split(suffix, activePoint);
 			suffix.decrement();
 			activePoint.updateAfterInsert(suffix);
 
-			if (suffix.isEmpty())
-				return;
-			else
-				tree.insert(suffix);
+			return !suffix.isEmpty();
 		}
 	}
 
@@ -83,19 +117,79 @@ class Edge<T, S extends Iterable<T>> implements Iterable<T> {
 	 *            The active point to insert it at.
 	 */
 	private void split(Suffix<T,S> suffix, ActivePoint<T,S> activePoint) {
-		Node<T,S> breakNode = new Node<T,S>(this, sequence, tree);
+		Node<T,S> breakNode = splitAt(activePoint.getLength());
 		Edge<T,S> newEdge = new Edge<T,S>(suffix.getEndPosition()-1, breakNode,
 				sequence, tree);
 		breakNode.insert(newEdge);
-		Edge<T,S> oldEdge = new Edge<T,S>(start + activePoint.getLength(),
-				breakNode, sequence, tree);
-		oldEdge.end = end;
+		tree.setSuffixLink(breakNode);
+		tree.incrementInsertCount();
+		BuildCounters counters = tree.getBuildCounters();
+		if (counters != null) {
+			counters.edgeSplits++;
+			counters.leavesCreated++;
+		}
+	}
+
+	/**
+	 * Splits the edge after the given number of items. This edge is
+	 * shortened to end at a new node, and the rest of it becomes a child of
+	 * that node leading to the original terminal.
+	 * 
+	 * @param length
+	 *            The number of items to keep on this edge.
+	 * @return The new node.
+	 */
+	Node<T,S> splitAt(int length) {
+		Node<T,S> breakNode = new Node<T,S>(this, sequence, tree);
+		Edge<T,S> oldEdge = new Edge<T,S>(start + length, end, breakNode,
+				sequence, tree);
 		oldEdge.terminal = this.terminal;
+		if (terminal != null)
+			terminal.setIncomingEdge(oldEdge);
 		breakNode.insert(oldEdge);
 		this.terminal = breakNode;
-		end = start + activePoint.getLength();
-		tree.setSuffixLink(breakNode);
-		tree.incrementInsertCount();
+		end = start + length;
+		return breakNode;
+	}
+
+	/**
+	 * Moves this edge to another occurrence of the same items in the master
+	 * sequence, keeping its length, as happens when the items it points at
+	 * are removed.
+	 * 
+	 * @param start
+	 *            The position of the other occurrence.
+	 */
+	void moveTo(int start) {
+		if (end != -1)
+			end = start + getLength();
+		this.start = start;
+	}
+
+	/**
+	 * Extends this edge over the only child edge of the node it leads to,
+	 * which is dropped from the tree. This edge then leads to wherever the
+	 * child edge led.
+	 * 
+	 * @param child
+	 *            The only child edge of this edge's terminal.
+	 */
+	void absorb(Edge<T,S> child) {
+		start = child.start - getLength();
+		end = child.end;
+		terminal = child.terminal;
+		if (terminal != null)
+			terminal.setIncomingEdge(this);
+	}
+
+	/**
+	 * Gets the index of the first item of the edge.
+	 * 
+	 * @return The index of the start item, of this edge, in the original
+	 *         sequence.
+	 */
+	int getStart() {
+		return start;
 	}
 
 	/**
@@ -137,6 +231,25 @@ class Edge<T, S extends Iterable<T>> implements Iterable<T> {
 		return terminal;
 	}
 
+	/**
+	 * Retrieves the node this edge extends from.
+	 * 
+	 * @return The parent node.
+	 */
+	Node<T,S> getParent() {
+		return parentNode;
+	}
+
+	/**
+	 * Sets the node this edge leads to.
+	 * 
+	 * @param terminal
+	 *            The terminating node.
+	 */
+	void setTerminal(Node<T,S> terminal) {
+		this.terminal = terminal;
+	}
+
 	/**
 	 * Retrieves the item at given position within the current edge.
 	 * 
@@ -166,12 +279,39 @@ class Edge<T, S extends Iterable<T>> implements Iterable<T> {
 		return (T) sequence.getItem(start);
 	}
 
+	/**
+	 * Retrieves the code of the item at given position within the current
+	 * edge.
+	 * 
+	 * @param position
+	 *            The index of the item relative to the start of edge.
+	 * @return The code of the item at position.
+	 * @throws IllegalArgumentException
+	 *             when the position exceeds the length of the current edge.
+	 */
+	int getCodeAt(int position) {
+		if (position > getLength())
+			throw new IllegalArgumentException("Index " + position
+					+ " is greater than " + getLength()
+					+ " - the length of this edge.");
+		return sequence.codeAt(start + position);
+	}
+
+	/**
+	 * Retrieves the code of the starting item of this edge.
+	 * 
+	 * @return The code of the item at index 0 of this edge.
+	 */
+	int getStartCode() {
+		return sequence.codeAt(start);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		for (int i = start; i < getEnd(); i++) {
 			sb.append(sequence.getItem(i).toString()).append(", ");
-			if(sequence.getItem(i).getClass().equals(SequenceTerminal.class))
+			if(sequence.codeAt(i) < 0)
 				break;
 		}
 		return sb.toString();
@@ -195,7 +335,8 @@ class Edge<T, S extends Iterable<T>> implements Iterable<T> {
 			@SuppressWarnings("unchecked")
 			public T next() {
 				if(end == -1)
-					hasNext = !sequence.getItem(currentPosition).getClass().equals(SequenceTerminal.class);
+					hasNext = sequence.codeAt(currentPosition) >= 0
+							&& currentPosition < getEnd()-1;
 				else
 					hasNext = currentPosition < getEnd()-1;
 				return (T) sequence.getItem(currentPosition++);
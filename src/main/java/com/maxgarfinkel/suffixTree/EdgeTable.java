@@ -0,0 +1,122 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * An open addressing hash table of the child edges of a {@link Node} with
+ * too many children to scan. Edges are keyed by the code of their first item,
+ * which is read from the master sequence rather than stored, so each entry is
+ * a single reference. Collisions are resolved by linear probing, and removal
+ * shifts later entries back rather than leaving markers.
+ * 
+ * @author Max Garfinkel
+ */
+final class EdgeTable<T, S extends Iterable<T>> {
+
+	private Edge<T, S>[] slots;
+	private int size = 0;
+	private int mask;
+
+	EdgeTable(int capacity) {
+		slots = Edge.newArray(Integer.highestOneBit(Math.max(16, capacity * 2) - 1) << 1);
+		mask = slots.length - 1;
+	}
+
+	/**
+	 * Retrieves the edge starting with the item with the given code.
+	 * 
+	 * @param code
+	 *            The code of the first item of the edge.
+	 * @return The edge, or null if there is none.
+	 */
+	Edge<T, S> get(int code) {
+		int slot = slot(code);
+		while (true) {
+			Edge<T, S> edge = slots[slot];
+			if (edge == null || edge.getStartCode() == code)
+				return edge;
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Adds an edge, which must not start with the same item as an edge
+	 * already in the table.
+	 * 
+	 * @param edge
+	 *            The edge to add.
+	 */
+	void add(Edge<T, S> edge) {
+		int slot = slot(edge.getStartCode());
+		while (slots[slot] != null)
+			slot = (slot + 1) & mask;
+		slots[slot] = edge;
+		if (++size * 2 > slots.length)
+			resize();
+	}
+
+	/**
+	 * Removes the edge starting with the item with the given code, if there is
+	 * one.
+	 * 
+	 * @param code
+	 *            The code of the first item of the edge.
+	 */
+	void remove(int code) {
+		int slot = slot(code);
+		while (slots[slot] != null && slots[slot].getStartCode() != code)
+			slot = (slot + 1) & mask;
+		if (slots[slot] == null)
+			return;
+		size--;
+		int hole = slot;
+		for (int next = (hole + 1) & mask; slots[next] != null; next = (next + 1) & mask) {
+			int home = slot(slots[next].getStartCode());
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				slots[hole] = slots[next];
+				hole = next;
+			}
+		}
+		slots[hole] = null;
+	}
+
+	/**
+	 * @return The number of edges in the table.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return The number of slots, some of which may be empty.
+	 */
+	int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * @param index
+	 *            A slot number below {@link #capacity()}.
+	 * @return The edge in the slot, or null if it is empty.
+	 */
+	Edge<T, S> slotAt(int index) {
+		return slots[index];
+	}
+
+	private void resize() {
+		Edge<T, S>[] old = slots;
+		slots = Edge.newArray(old.length * 2);
+		mask = slots.length - 1;
+		for (Edge<T, S> edge : old) {
+			if (edge == null)
+				continue;
+			int slot = slot(edge.getStartCode());
+			while (slots[slot] != null)
+				slot = (slot + 1) & mask;
+			slots[slot] = edge;
+		}
+	}
+
+	private int slot(int code) {
+		int hash = code * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
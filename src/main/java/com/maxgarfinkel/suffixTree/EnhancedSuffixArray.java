@@ -0,0 +1,618 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An index over a fixed set of sequences which answers the same queries as
+ * {@link SuffixTree} in less memory, at the cost of taking longer to answer
+ * them and not accepting further sequences.
+ *
+ * Items are encoded by a {@link SymbolTable} and the sequences laid end to
+ * end in one text, each followed by the same separator and the whole by a
+ * sentinel. The suffix array of the text is built with SA-IS and the LCP
+ * array with Kasai's method, stopping at separators so that no common prefix
+ * runs from one sequence into the next, and a child table is derived from the
+ * LCP array. Together these form the enhanced suffix array of Abouelhoda,
+ * Kurtz and Ohlebusch, in which the suffix tree's internal nodes are the LCP
+ * intervals, so patterns are walked down from the root interval much as they
+ * are walked down the tree, by an {@link IntervalCursor}. The sequence
+ * holding a suffix is found from the position at which each sequence starts.
+ *
+ * The text is held in bytes if there are at most 254 distinct items, in
+ * chars if there are at most 65534, and in ints otherwise. The suffix array
+ * takes four bytes per item, and the LCP and child tables one byte per item
+ * each, with the rare values which do not fit held apart in sorted arrays.
+ * The index therefore takes about seven bytes per item for small alphabets,
+ * eight for alphabets up to 65534 items and ten beyond that, counting each
+ * separator as an item, plus about fifty bytes for each distinct item in the
+ * symbol table. While it is being built it needs up to about four more
+ * bytes per item, for the reduced text of SA-IS and then the rank array of
+ * Kasai's method.
+ *
+ * As with {@link SuffixTree}, a sequence equal to one before it is not
+ * indexed again, so its occurrences are not reported separately. The
+ * sequences must be iterable more than once, as they are read once to
+ * encode their items and again to fill in the text.
+ *
+ * @author Max Garfinkel
+ *
+ * @param <I>
+ *            The type of the item within the sequence.
+ * @param <S>
+ *            The sequence type, which must iterate over items of type
+ *            <code>I</code>
+ */
+public final class EnhancedSuffixArray<I, S extends Iterable<I>> implements
+		SubstringIndex<I, S> {
+
+	static final int SENTINEL = 0;
+	static final int SEPARATOR = 1;
+	static final int FIRST_ITEM = 2;
+
+	private final SymbolTable symbols = new SymbolTable();
+	private final int sequenceCount;
+	private final int[] sequenceIds;
+	private final int[] sequenceStarts;
+
+	private final Text text;
+	private final int[] suffixes;
+	private final byte[] lcp;
+	private final Overflow lcpOverflow;
+	private final byte[] child;
+	private final Overflow childOverflow;
+
+	/**
+	 * Builds the index of the given sequences.
+	 *
+	 * @param sequences
+	 *            The sequences to index, whose ids are their positions in the
+	 *            list.
+	 */
+	public EnhancedSuffixArray(List<S> sequences) {
+		sequenceCount = sequences.size();
+		Set<S> seen = new HashSet<S>();
+		List<Integer> ids = new ArrayList<Integer>();
+		int length = 1;
+		for (int id = 0; id < sequences.size(); id++) {
+			S sequence = sequences.get(id);
+			if (!seen.add(sequence))
+				continue;
+			for (I item : sequence) {
+				symbols.encode(item);
+				length++;
+			}
+			ids.add(id);
+			length++;
+		}
+		int indexed = ids.size();
+		sequenceIds = new int[indexed];
+		sequenceStarts = new int[indexed + 1];
+		int alphabet = FIRST_ITEM + symbols.size();
+		text = Text.allocate(length, alphabet);
+		int position = 0;
+		for (int k = 0; k < indexed; k++) {
+			sequenceIds[k] = ids.get(k);
+			sequenceStarts[k] = position;
+			for (I item : sequences.get(sequenceIds[k]))
+				text.set(position++, symbols.lookup(item) + FIRST_ITEM);
+			text.set(position++, SEPARATOR);
+		}
+		sequenceStarts[indexed] = position;
+		text.set(position, SENTINEL);
+
+		suffixes = new int[length];
+		sais(text, suffixes, length, alphabet);
+
+		lcp = new byte[length];
+		lcpOverflow = new Overflow();
+		buildLcp();
+		child = new byte[length];
+		childOverflow = new Overflow();
+		buildChildTable();
+	}
+
+	public boolean contains(S pattern) {
+		return walk(pattern) != null;
+	}
+
+	public int countOccurrences(S pattern) {
+		IntervalCursor<I, S> cursor = walk(pattern);
+		return cursor == null || cursor.getLength() == 0 ? 0 : cursor.getLast()
+				- cursor.getFirst() + 1;
+	}
+
+	/**
+	 * Counts the distinct sequences containing the given pattern, by
+	 * visiting each of its occurrences.
+	 */
+	public int countSequencesContaining(S pattern) {
+		IntervalCursor<I, S> cursor = walk(pattern);
+		if (cursor == null || cursor.getLength() == 0)
+			return 0;
+		return cursor.getSequenceIds().length;
+	}
+
+	public List<Occurrence> locate(S pattern) {
+		List<Occurrence> occurrences = new ArrayList<Occurrence>();
+		IntervalCursor<I, S> cursor = walk(pattern);
+		if (cursor == null || cursor.getLength() == 0)
+			return occurrences;
+		for (int i = cursor.getFirst(); i <= cursor.getLast(); i++) {
+			int k = sequenceOf(suffixes[i]);
+			occurrences.add(new Occurrence(sequenceIds[k], suffixes[i]
+					- sequenceStarts[k]));
+		}
+		Collections.sort(occurrences);
+		return occurrences;
+	}
+
+	/**
+	 * @return The number of sequences given, including those equal to one
+	 *         before them.
+	 */
+	public int getSequenceCount() {
+		return sequenceCount;
+	}
+
+	/**
+	 * @return The length of the text, counting a separator for every indexed
+	 *         sequence and the sentinel.
+	 */
+	int getLength() {
+		return suffixes.length;
+	}
+
+	/**
+	 * @return The size in bytes of each item of the text.
+	 */
+	int getTextWidth() {
+		return text.width();
+	}
+
+	/**
+	 * Walks a pattern down from the root interval.
+	 *
+	 * @return The cursor at the end of the pattern, or null if the pattern
+	 *         does not occur.
+	 */
+	private IntervalCursor<I, S> walk(S pattern) {
+		IntervalCursor<I, S> cursor = new IntervalCursor<I, S>(this);
+		for (I item : pattern) {
+			if (!cursor.proceedTo(item))
+				return null;
+		}
+		return cursor;
+	}
+
+	/**
+	 * @return The code of an item as held in the text, or
+	 *         {@link SymbolTable#NONE} if no sequence holds it.
+	 */
+	int codeOf(Object item) {
+		int code = symbols.lookup(item);
+		return code == SymbolTable.NONE ? code : code + FIRST_ITEM;
+	}
+
+	/**
+	 * @return The code at the given position of the text.
+	 */
+	int codeAt(int position) {
+		return text.get(position);
+	}
+
+	/**
+	 * @return The position in the text of the suffix at the given index of
+	 *         the suffix array.
+	 */
+	int suffixAt(int index) {
+		return suffixes[index];
+	}
+
+	/**
+	 * @return The id of the sequence holding the given position of the text.
+	 */
+	int sequenceIdAt(int position) {
+		return sequenceIds[sequenceOf(position)];
+	}
+
+	/**
+	 * @return The index of the second child interval of the LCP interval
+	 *         [i..j], which is its first l-index.
+	 */
+	int firstChild(int i, int j) {
+		int up = lcpAt(j) > lcpAt(j + 1) ? childAt(j) : -1;
+		if (i < up && up <= j)
+			return up;
+		return childAt(i);
+	}
+
+	/**
+	 * @return The l-index following the given one in an interval ending at
+	 *         j, or j + 1 if it is the last.
+	 */
+	int nextSibling(int index, int j) {
+		int next = childAt(index);
+		if (next > index && next <= j && lcpAt(next) == lcpAt(index))
+			return next;
+		return j + 1;
+	}
+
+	/**
+	 * @return The number of items shared by every suffix in the LCP interval
+	 *         [i..j], which must hold more than one suffix.
+	 */
+	int intervalLcp(int i, int j) {
+		return lcpAt(firstChild(i, j));
+	}
+
+	/**
+	 * @return The LCP of the suffix at the given index of the suffix array
+	 *         and the one before it, taking -1 before the first and after
+	 *         the last.
+	 */
+	private int lcpAt(int index) {
+		if (index == 0 || index == lcp.length)
+			return -1;
+		int value = lcp[index] & 0xFF;
+		return value == 0xFF ? lcpOverflow.get(index) : value;
+	}
+
+	private int childAt(int index) {
+		int offset = child[index];
+		return index + (offset == Byte.MIN_VALUE ? childOverflow.get(index) : offset);
+	}
+
+	private int sequenceOf(int position) {
+		int k = Arrays.binarySearch(sequenceStarts, position);
+		return k >= 0 ? k : -(k + 1) - 1;
+	}
+
+	/**
+	 * Kasai's method, which finds each LCP from the one of the suffix
+	 * starting one position earlier, less one. Comparisons stop at a
+	 * separator, which still leaves each LCP at least one less than the
+	 * earlier one.
+	 */
+	private void buildLcp() {
+		int n = suffixes.length;
+		int[] rank = new int[n];
+		for (int i = 0; i < n; i++)
+			rank[suffixes[i]] = i;
+		int h = 0;
+		for (int i = 0; i < n; i++) {
+			if (rank[i] == 0) {
+				h = 0;
+				continue;
+			}
+			int j = suffixes[rank[i] - 1];
+			while (i + h < n && j + h < n && text.get(i + h) == text.get(j + h)
+					&& text.get(i + h) != SEPARATOR)
+				h++;
+			if (h >= 0xFF) {
+				lcp[rank[i]] = (byte) 0xFF;
+				lcpOverflow.put(rank[i], h);
+			} else {
+				lcp[rank[i]] = (byte) h;
+			}
+			if (h > 0)
+				h--;
+		}
+		lcpOverflow.seal();
+	}
+
+	/**
+	 * Builds the up, down and next l-index values of every index with one
+	 * pass of the stack method of Abouelhoda et al., packing them into one
+	 * table as they are found. Each index holds its next l-index if it has
+	 * one, otherwise the up value of the index after it if that is defined,
+	 * which is when its LCP is greater than the next, and otherwise its down
+	 * value. A down value is only written when the index is about to leave
+	 * the stack, since if the LCP which ends its child interval equals its
+	 * own, it has a next l-index instead. So every index is written at most
+	 * once, and which value it holds is always clear from the LCP values when
+	 * the table is read. An index with none holds itself.
+	 */
+	private void buildChildTable() {
+		int n = suffixes.length;
+		int[] stack = new int[16];
+		int size = 0;
+		stack[size++] = 0;
+		for (int i = 1; i <= n; i++) {
+			int last = -1;
+			int depth = lcpAt(i);
+			while (depth < lcpAt(stack[size - 1])) {
+				last = stack[--size];
+				int top = stack[size - 1];
+				if (depth < lcpAt(top) && lcpAt(top) != lcpAt(last))
+					setChild(top, last);
+			}
+			if (last != -1)
+				setChild(i - 1, last);
+			if (i == n)
+				break;
+			if (depth == lcpAt(stack[size - 1]))
+				setChild(stack[size - 1], i);
+			if (size == stack.length)
+				stack = Arrays.copyOf(stack, size * 2);
+			stack[size++] = i;
+		}
+		childOverflow.seal();
+	}
+
+	private void setChild(int index, int value) {
+		int offset = value - index;
+		if (offset > Byte.MIN_VALUE && offset <= Byte.MAX_VALUE) {
+			child[index] = (byte) offset;
+		} else {
+			child[index] = Byte.MIN_VALUE;
+			childOverflow.put(index, offset);
+		}
+	}
+
+	/**
+	 * The text of the index, held in the narrowest array its alphabet fits.
+	 */
+	abstract static class Text {
+
+		static Text allocate(int length, int alphabet) {
+			if (alphabet <= 1 << 8)
+				return new ByteText(new byte[length]);
+			if (alphabet <= 1 << 16)
+				return new CharText(new char[length]);
+			return new IntText(new int[length]);
+		}
+
+		abstract int get(int index);
+
+		abstract void set(int index, int code);
+
+		/**
+		 * @return The size in bytes of each item.
+		 */
+		abstract int width();
+	}
+
+	private static final class ByteText extends Text {
+		private final byte[] codes;
+
+		ByteText(byte[] codes) {
+			this.codes = codes;
+		}
+
+		@Override
+		int get(int index) {
+			return codes[index] & 0xFF;
+		}
+
+		@Override
+		void set(int index, int code) {
+			codes[index] = (byte) code;
+		}
+
+		@Override
+		int width() {
+			return 1;
+		}
+	}
+
+	private static final class CharText extends Text {
+		private final char[] codes;
+
+		CharText(char[] codes) {
+			this.codes = codes;
+		}
+
+		@Override
+		int get(int index) {
+			return codes[index];
+		}
+
+		@Override
+		void set(int index, int code) {
+			codes[index] = (char) code;
+		}
+
+		@Override
+		int width() {
+			return 2;
+		}
+	}
+
+	private static final class IntText extends Text {
+		private final int[] codes;
+
+		IntText(int[] codes) {
+			this.codes = codes;
+		}
+
+		@Override
+		int get(int index) {
+			return codes[index];
+		}
+
+		@Override
+		void set(int index, int code) {
+			codes[index] = code;
+		}
+
+		@Override
+		int width() {
+			return 4;
+		}
+	}
+
+	/**
+	 * Values too large for a table of bytes, held as pairs of index and value
+	 * sorted by index once all are added.
+	 */
+	private static final class Overflow {
+		private int[] indices = new int[16];
+		private int[] values = new int[16];
+		private int size = 0;
+
+		void put(int index, int value) {
+			if (size == indices.length) {
+				indices = Arrays.copyOf(indices, size * 2);
+				values = Arrays.copyOf(values, size * 2);
+			}
+			indices[size] = index;
+			values[size++] = value;
+		}
+
+		void seal() {
+			long[] pairs = new long[size];
+			for (int i = 0; i < size; i++)
+				pairs[i] = ((long) indices[i] << 32) | (values[i] & 0xFFFFFFFFL);
+			Arrays.sort(pairs);
+			indices = new int[size];
+			values = new int[size];
+			for (int i = 0; i < size; i++) {
+				indices[i] = (int) (pairs[i] >>> 32);
+				values[i] = (int) pairs[i];
+			}
+		}
+
+		int get(int index) {
+			return values[Arrays.binarySearch(indices, index)];
+		}
+	}
+
+	/**
+	 * Builds the suffix array of a text held in an array of ints.
+	 *
+	 * @see #sais(Text, int[], int, int)
+	 */
+	static void sais(int[] text, int[] suffixes, int n, int alphabet) {
+		sais(new IntText(text), suffixes, n, alphabet);
+	}
+
+	/**
+	 * Builds the suffix array of a text with SA-IS. The last item of the
+	 * text must be 0 and occur nowhere else, and every item must be less than
+	 * the alphabet size.
+	 *
+	 * The LMS suffixes, those of type S preceded by one of type L, are sorted
+	 * by inducing the order of every suffix from their approximate order.
+	 * Each LMS substring is then named by its rank, and if any names repeat,
+	 * the suffix array of the names is built the same way. The order of the
+	 * LMS suffixes that gives induces the final order.
+	 */
+	static void sais(Text text, int[] suffixes, int n, int alphabet) {
+		if (n == 1) {
+			suffixes[0] = 0;
+			return;
+		}
+		BitSet small = new BitSet(n);
+		small.set(n - 1);
+		for (int i = n - 2; i >= 0; i--) {
+			int c = text.get(i);
+			int d = text.get(i + 1);
+			if (c < d || (c == d && small.get(i + 1)))
+				small.set(i);
+		}
+		int[] buckets = new int[alphabet];
+		for (int i = 0; i < n; i++)
+			buckets[text.get(i)]++;
+
+		Arrays.fill(suffixes, 0, n, -1);
+		int[] ends = bucketEnds(buckets, alphabet);
+		for (int i = 1; i < n; i++) {
+			if (isLms(small, i))
+				suffixes[--ends[text.get(i)]] = i;
+		}
+		induce(text, suffixes, n, alphabet, small, buckets);
+
+		int lmsCount = 0;
+		for (int i = 0; i < n; i++) {
+			if (isLms(small, suffixes[i]))
+				suffixes[lmsCount++] = suffixes[i];
+		}
+		Arrays.fill(suffixes, lmsCount, n, -1);
+		int names = 0;
+		int previous = -1;
+		for (int i = 0; i < lmsCount; i++) {
+			int position = suffixes[i];
+			boolean differ = previous == -1;
+			for (int d = 0; !differ; d++) {
+				if (text.get(position + d) != text.get(previous + d)
+						|| small.get(position + d) != small.get(previous + d)) {
+					differ = true;
+				} else if (d > 0 && (isLms(small, position + d) || isLms(small, previous + d))) {
+					break;
+				}
+			}
+			if (differ) {
+				names++;
+				previous = position;
+			}
+			suffixes[lmsCount + position / 2] = names - 1;
+		}
+		int[] reduced = new int[lmsCount];
+		for (int i = lmsCount, k = 0; i < n; i++) {
+			if (suffixes[i] >= 0)
+				reduced[k++] = suffixes[i];
+		}
+		int[] reducedSuffixes = new int[lmsCount];
+		if (names < lmsCount) {
+			sais(new IntText(reduced), reducedSuffixes, lmsCount, names);
+		} else {
+			for (int i = 0; i < lmsCount; i++)
+				reducedSuffixes[reduced[i]] = i;
+		}
+
+		for (int i = 1, k = 0; i < n; i++) {
+			if (isLms(small, i))
+				reduced[k++] = i;
+		}
+		Arrays.fill(suffixes, 0, n, -1);
+		ends = bucketEnds(buckets, alphabet);
+		for (int i = lmsCount - 1; i >= 0; i--) {
+			int position = reduced[reducedSuffixes[i]];
+			suffixes[--ends[text.get(position)]] = position;
+		}
+		induce(text, suffixes, n, alphabet, small, buckets);
+	}
+
+	/**
+	 * Induces the L type suffixes from left to right and then the S type
+	 * suffixes from right to left.
+	 */
+	private static void induce(Text text, int[] suffixes, int n, int alphabet,
+			BitSet small, int[] buckets) {
+		int[] starts = new int[alphabet];
+		for (int c = 0, sum = 0; c < alphabet; c++) {
+			starts[c] = sum;
+			sum += buckets[c];
+		}
+		for (int i = 0; i < n; i++) {
+			int j = suffixes[i] - 1;
+			if (j >= 0 && !small.get(j))
+				suffixes[starts[text.get(j)]++] = j;
+		}
+		int[] ends = bucketEnds(buckets, alphabet);
+		for (int i = n - 1; i >= 0; i--) {
+			int j = suffixes[i] - 1;
+			if (j >= 0 && small.get(j))
+				suffixes[--ends[text.get(j)]] = j;
+		}
+	}
+
+	private static int[] bucketEnds(int[] buckets, int alphabet) {
+		int[] ends = new int[alphabet];
+		for (int c = 0, sum = 0; c < alphabet; c++) {
+			sum += buckets[c];
+			ends[c] = sum;
+		}
+		return ends;
+	}
+
+	private static boolean isLms(BitSet small, int i) {
+		return i > 0 && small.get(i) && !small.get(i - 1);
+	}
+}
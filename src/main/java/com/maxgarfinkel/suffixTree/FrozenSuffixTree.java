@@ -0,0 +1,217 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable copy of a {@link SuffixTree}, made by
+ * {@link SuffixTree#freeze()}, which any number of threads may query at once
+ * without locking.
+ * 
+ * Nodes are numbered breadth first, so the children of each node are
+ * numbered consecutively, and every per node value is held in a final array.
+ * Children are ordered by the hash code of the first item on their edge and
+ * found by binary search. Leaf edges are closed at the terminal of their own
+ * sequence, so no construction state is needed to read them. As every field
+ * is final and nothing is written after construction, a frozen tree is
+ * safely published to any thread that obtains a reference to it.
+ * 
+ * @author Max Garfinkel
+ * 
+ * @param <I>
+ *            The type of the item within the sequence.
+ * @param <S>
+ *            The sequence type, which must iterate over items of type
+ *            <code>I</code>
+ */
+public final class FrozenSuffixTree<I, S extends Iterable<I>> implements
+		SubstringIndex<I, S> {
+
+	private final Object[] items;
+	private final int[] sequenceStarts;
+	private final int firstSequenceId;
+
+	private final int[] start;
+	private final int[] end;
+	private final int[] depth;
+	private final int[] firstChild;
+	private final int[] firstHash;
+	private final int[] leafCount;
+	private final int[] sequenceCount;
+
+	/**
+	 * Copies an annotated tree.
+	 */
+	FrozenSuffixTree(SuffixTree<I, S> tree) {
+		Sequence<I, S> sequence = tree.getSequence();
+		int offset = sequence.getFirstPosition();
+		firstSequenceId = sequence.getFirstSequenceId();
+		items = new Object[sequence.getLength() - offset];
+		for (int i = 0; i < items.length; i++)
+			items[i] = sequence.getItem(offset + i);
+		int sequences = sequence.getSequenceCount() - firstSequenceId;
+		sequenceStarts = new int[sequences + 1];
+		for (int i = 0; i < sequenceStarts.length; i++)
+			sequenceStarts[i] = i < sequences ? sequence
+					.getSequenceStart(firstSequenceId + i) - offset : items.length;
+
+		List<Edge<I, S>> order = new ArrayList<Edge<I, S>>();
+		List<Integer> parents = new ArrayList<Integer>();
+		order.add(null);
+		parents.add(-1);
+		int[] childStarts = new int[16];
+		for (int node = 0; node < order.size(); node++) {
+			if (childStarts.length < node + 2)
+				childStarts = Arrays.copyOf(childStarts, childStarts.length * 2);
+			childStarts[node] = order.size();
+			Edge<I, S> incoming = order.get(node);
+			if (node > 0 && incoming.getTerminal() == null)
+				continue;
+			Node<I, S> parent = node == 0 ? tree.getRoot() : incoming.getTerminal();
+			List<Edge<I, S>> children = new ArrayList<Edge<I, S>>(parent.getEdges());
+			Collections.sort(children, BY_HASH);
+			for (Edge<I, S> child : children) {
+				order.add(child);
+				parents.add(node);
+			}
+		}
+		int size = order.size();
+		childStarts[size] = size;
+		firstChild = Arrays.copyOf(childStarts, size + 1);
+		start = new int[size];
+		end = new int[size];
+		depth = new int[size];
+		firstHash = new int[size];
+		leafCount = new int[size];
+		sequenceCount = new int[size];
+		Node<I, S> root = tree.getRoot();
+		leafCount[0] = root.getLeafCount();
+		sequenceCount[0] = root.getSequenceCount();
+		for (int node = 1; node < size; node++) {
+			Edge<I, S> edge = order.get(node);
+			int parent = parents.get(node);
+			start[node] = edge.getStart() - offset;
+			firstHash[node] = items[start[node]].hashCode();
+			Node<I, S> terminal = edge.getTerminal();
+			if (terminal == null) {
+				int sequenceId = sequence.getSequenceId(edge.getStart())
+						- firstSequenceId;
+				end[node] = sequenceStarts[sequenceId + 1];
+				leafCount[node] = 1;
+				sequenceCount[node] = 1;
+			} else {
+				end[node] = edge.getEnd() - offset;
+				leafCount[node] = terminal.getLeafCount();
+				sequenceCount[node] = terminal.getSequenceCount();
+			}
+			depth[node] = depth[parent] + end[node] - start[node];
+		}
+	}
+
+	private static final Comparator<Edge<?, ?>> BY_HASH = new Comparator<Edge<?, ?>>() {
+		public int compare(Edge<?, ?> a, Edge<?, ?> b) {
+			int first = a.getStartItem().hashCode();
+			int second = b.getStartItem().hashCode();
+			return first < second ? -1 : first == second ? 0 : 1;
+		}
+	};
+
+	public boolean contains(S pattern) {
+		return find(pattern) >= 0;
+	}
+
+	public int countOccurrences(S pattern) {
+		int node = find(pattern);
+		return node > 0 ? leafCount[node] : 0;
+	}
+
+	public int countSequencesContaining(S pattern) {
+		int node = find(pattern);
+		return node > 0 ? sequenceCount[node] : 0;
+	}
+
+	public List<Occurrence> locate(S pattern) {
+		List<Occurrence> occurrences = new ArrayList<Occurrence>();
+		int found = find(pattern);
+		if (found <= 0)
+			return occurrences;
+		int[] stack = new int[16];
+		int size = 0;
+		stack[size++] = found;
+		while (size > 0) {
+			int node = stack[--size];
+			if (firstChild[node] == firstChild[node + 1]) {
+				int suffixStart = end[node] - depth[node];
+				int index = sequenceOf(suffixStart);
+				occurrences.add(new Occurrence(firstSequenceId + index,
+						suffixStart - sequenceStarts[index]));
+				continue;
+			}
+			for (int child = firstChild[node]; child < firstChild[node + 1]; child++) {
+				if (size == stack.length)
+					stack = Arrays.copyOf(stack, size * 2);
+				stack[size++] = child;
+			}
+		}
+		Collections.sort(occurrences);
+		return occurrences;
+	}
+
+	/**
+	 * @return The number of sequences in the tree, not counting any removed
+	 *         before it was frozen.
+	 */
+	public int getSequenceCount() {
+		return sequenceStarts.length - 1;
+	}
+
+	/**
+	 * Walks the given pattern down from the root.
+	 * 
+	 * @return The node at the end of the edge on which the pattern ends, 0 for
+	 *         the empty pattern, or -1 if the pattern does not occur.
+	 */
+	private int find(S pattern) {
+		int node = 0;
+		int position = 0;
+		for (I item : pattern) {
+			if (position == end[node]) {
+				node = child(node, item);
+				if (node < 0)
+					return -1;
+				position = start[node] + 1;
+			} else if (item.equals(items[position])) {
+				position++;
+			} else {
+				return -1;
+			}
+		}
+		return node;
+	}
+
+	private int child(int node, Object item) {
+		int hash = item.hashCode();
+		int low = firstChild[node];
+		int high = firstChild[node + 1];
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (firstHash[middle] < hash)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		for (; low < firstChild[node + 1] && firstHash[low] == hash; low++) {
+			if (item.equals(items[start[low]]))
+				return low;
+		}
+		return -1;
+	}
+
+	private int sequenceOf(int position) {
+		int index = Arrays.binarySearch(sequenceStarts, position);
+		return index >= 0 ? index : -(index + 1) - 1;
+	}
+}
@@ -0,0 +1,141 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A generalised suffix tree over <code>int</code> items, such as token ids.
+ * The text of every sequence is held in pages of <code>int</code> values and
+ * no item is ever boxed.
+ *
+ * Items must be zero or greater. Negative values are reserved for the
+ * terminals, which are stored directly in the text.
+ *
+ * @author Max Garfinkel
+ */
+public class IntSuffixTree extends PrimitiveSuffixTree {
+
+	private final Pages text;
+	private int length;
+
+	/**
+	 * Constructs an empty suffix tree on the heap.
+	 */
+	public IntSuffixTree() {
+		this(TreeStorage.heap());
+	}
+
+	/**
+	 * Constructs a suffix tree in the given storage. If the storage already
+	 * holds a IntSuffixTree it is reopened.
+	 *
+	 * @param storage
+	 *            The storage for the tree.
+	 */
+	public IntSuffixTree(TreeStorage storage) {
+		super(storage, 3);
+		text = new Pages(storage, "text", 4);
+		length = getTextLength();
+		text.ensureCapacity(length);
+	}
+
+	/**
+	 * Constructs a suffix tree containing the given sequence.
+	 *
+	 * @param sequence
+	 *            The first sequence to add.
+	 */
+	public IntSuffixTree(int[] sequence) {
+		this();
+		add(sequence);
+	}
+
+	/**
+	 * Opens a tree saved with {@link #save(File)}. The tree answers queries
+	 * straight from the mapped file, and no sequences can be added to it.
+	 *
+	 * @param file
+	 *            The saved tree.
+	 * @return The tree.
+	 * @throws IOException
+	 *             if the file cannot be read or does not hold a saved tree.
+	 * @throws IllegalArgumentException
+	 *             if the file holds a different kind of tree.
+	 */
+	public static IntSuffixTree load(File file) throws IOException {
+		return new IntSuffixTree(TreeStorage.open(file));
+	}
+
+	/**
+	 * Add a sequence to the suffix tree. It is immediately processed and
+	 * added to the tree.
+	 *
+	 * @param sequence
+	 *            A sequence to be added.
+	 * @return The id of the sequence, which is the number of sequences added
+	 *         before it.
+	 * @throws IllegalArgumentException
+	 *             if the sequence contains a negative item.
+	 */
+	public int add(int[] sequence) {
+		checkWritable();
+		for (int item : sequence) {
+			if (item < 0)
+				throw new IllegalArgumentException("Item " + item
+						+ " is negative, negative items are reserved for terminals.");
+		}
+		int from = length;
+		ensureCapacity(length + sequence.length + 1);
+		for (int item : sequence)
+			text.setInt(length++, item);
+		text.setInt(length++, terminal(getSequenceCount()));
+		return sequenceAdded(from, length - 1);
+	}
+
+	/**
+	 * Tests whether any sequence in the tree contains the given pattern.
+	 *
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return True if the pattern occurs in the tree.
+	 */
+	public boolean contains(int[] pattern) {
+		return walk(pattern) != null;
+	}
+
+	/**
+	 * Retrieves the ids of the sequences which contain the given pattern.
+	 *
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The ids in ascending order, empty if there are none.
+	 */
+	public int[] sequencesContaining(int[] pattern) {
+		PrimitiveCursor cursor = walk(pattern);
+		return cursor == null ? new int[0] : cursor.getSequenceIds();
+	}
+
+	private PrimitiveCursor walk(int[] pattern) {
+		PrimitiveCursor cursor = new PrimitiveCursor(this);
+		for (int item : pattern) {
+			if (!cursor.proceedTo(item))
+				return null;
+		}
+		return cursor;
+	}
+
+	@Override
+	void addTextSections(List<TreeFile.Section> sections) {
+		sections.add(new TreeFile.Section(text, length));
+	}
+
+	@Override
+	int symbolAt(int position) {
+		return text.getInt(position);
+	}
+
+	private void ensureCapacity(int capacity) {
+		text.ensureCapacity(capacity);
+	}
+}
@@ -0,0 +1,123 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.BitSet;
+
+/**
+ * Walks down an {@link EnhancedSuffixArray} one item at a time, in the same
+ * way as {@link Cursor} does for a {@link SuffixTree}. The cursor stands in an
+ * LCP interval, the range of the suffix array holding the suffixes which
+ * start with the items walked so far. The interval plays the part of a node,
+ * and the items its suffixes share beyond those walked play the part of the
+ * rest of the edge into it.
+ *
+ * @author Max Garfinkel
+ *
+ * @param <I>
+ *            The type of the item within the sequence.
+ * @param <S>
+ *            The sequence type.
+ */
+final class IntervalCursor<I, S extends Iterable<I>> {
+
+	private final EnhancedSuffixArray<I, S> index;
+	private int first;
+	private int last;
+	private int depth;
+	private int length;
+
+	IntervalCursor(EnhancedSuffixArray<I, S> index) {
+		this.index = index;
+		returnToRoot();
+	}
+
+	/**
+	 * Moves the cursor on by the given item if the index contains it at the
+	 * current position.
+	 *
+	 * @param item
+	 *            The next item of the pattern being walked.
+	 * @return True if the cursor moved. False if the item does not follow
+	 *         the current position, in which case the cursor is unchanged.
+	 */
+	boolean proceedTo(I item) {
+		int code = index.codeOf(item);
+		if (code == SymbolTable.NONE)
+			return false;
+		if (length < depth) {
+			if (index.codeAt(index.suffixAt(first) + length) != code)
+				return false;
+			length++;
+			return true;
+		}
+		int from = first;
+		int next = index.firstChild(first, last);
+		while (index.codeAt(index.suffixAt(from) + depth) != code) {
+			if (next > last)
+				return false;
+			from = next;
+			next = index.nextSibling(next, last);
+		}
+		moveTo(from, next - 1);
+		length++;
+		return true;
+	}
+
+	/**
+	 * Retrieves the ids of the sequences containing the items walked so far,
+	 * by visiting each of their occurrences.
+	 *
+	 * @return The sequence ids in ascending order, empty if nothing has been
+	 *         walked.
+	 */
+	int[] getSequenceIds() {
+		if (length == 0)
+			return new int[0];
+		BitSet ids = new BitSet(index.getSequenceCount());
+		for (int i = first; i <= last; i++)
+			ids.set(index.sequenceIdAt(index.suffixAt(i)));
+		int[] result = new int[ids.cardinality()];
+		int k = 0;
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1))
+			result[k++] = id;
+		return result;
+	}
+
+	/**
+	 * @return The index in the suffix array of the first suffix starting with
+	 *         the items walked.
+	 */
+	int getFirst() {
+		return first;
+	}
+
+	/**
+	 * @return The index in the suffix array of the last suffix starting with
+	 *         the items walked.
+	 */
+	int getLast() {
+		return last;
+	}
+
+	/**
+	 * @return The number of items walked.
+	 */
+	int getLength() {
+		return length;
+	}
+
+	void returnToRoot() {
+		moveTo(0, index.getLength() - 1);
+		length = 0;
+	}
+
+	/**
+	 * Moves to an interval, which is a leaf if it holds one suffix, so shares
+	 * every item up to the end of the text.
+	 */
+	private void moveTo(int first, int last) {
+		this.first = first;
+		this.last = last;
+		depth = first == last ? Integer.MAX_VALUE : index.intervalLcp(first,
+				last);
+	}
+}
@@ -0,0 +1,198 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Computes the matching statistics of a query against a {@link SuffixTree}:
+ * for every position of the query, the length of the longest run of items
+ * starting there which occurs somewhere in the tree.
+ *
+ * The query is read one item at a time and the longest match ending at the
+ * current item is kept as a point in the tree. When the next item cannot
+ * extend the match, the match starting at the oldest position is complete,
+ * and the point moves to the match one item shorter by following the suffix
+ * link of the node above it and skipping down whole edges, so the query is
+ * processed in time linear in its length. Only the items of the current
+ * match are held, so the query may be read from a stream of any length.
+ *
+ * Lengths are returned in query order. The value for a position is only
+ * known once its match has ended, so it may be returned some items after the
+ * position was read. The tree must not be changed while the query is read.
+ *
+ * @author Max Garfinkel
+ *
+ * @param <I>
+ *            The type of the item within the sequence.
+ * @param <S>
+ *            The sequence type, which must iterate over items of type
+ *            <code>I</code>
+ */
+public class MatchingStatistics<I, S extends Iterable<I>> implements
+		Iterator<Integer> {
+
+	private final Node<I, S> root;
+	private final Sequence<I, S> sequence;
+	private final Iterator<? extends I> query;
+
+	private Node<I, S> node;
+	private int depth = 0;
+	private Edge<I, S> edge = null;
+	private int matched = 0;
+
+	private final IntQueue window = new IntQueue();
+	private final IntQueue lengths = new IntQueue();
+
+	MatchingStatistics(SuffixTree<I, S> tree, Iterator<? extends I> query) {
+		this.root = tree.getRoot();
+		this.sequence = tree.getSequence();
+		this.query = query;
+		node = root;
+	}
+
+	public boolean hasNext() {
+		while (lengths.isEmpty() && (query.hasNext() || !window.isEmpty())) {
+			if (query.hasNext()) {
+				read(sequence.lookup(query.next()));
+			} else {
+				lengths.add(window.size());
+				window.remove();
+			}
+		}
+		return !lengths.isEmpty();
+	}
+
+	/**
+	 * @return The length of the longest match starting at the next position
+	 *         of the query.
+	 * @throws NoSuchElementException
+	 *             if the whole query has been returned.
+	 */
+	public int nextLength() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		return lengths.remove();
+	}
+
+	public Integer next() {
+		return nextLength();
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException("Remove is not supported.");
+	}
+
+	/**
+	 * Extends the current match by the item with the given code, completing
+	 * the matches of the oldest positions until one can be extended.
+	 */
+	private void read(int code) {
+		while (!extend(code)) {
+			if (window.isEmpty()) {
+				lengths.add(0);
+				return;
+			}
+			lengths.add(window.size());
+			window.remove();
+			shorten();
+		}
+		window.add(code);
+	}
+
+	private boolean extend(int code) {
+		if (code < 0)
+			return false;
+		if (edge == null) {
+			edge = node.getEdgeStartingCode(code);
+			if (edge == null)
+				return false;
+			matched = 1;
+		} else if (sequence.codeAt(edge.getStart() + matched) == code) {
+			matched++;
+		} else {
+			return false;
+		}
+		descend();
+		return true;
+	}
+
+	/**
+	 * Moves the point to the match without its first item, which has just
+	 * been removed from the window.
+	 */
+	private void shorten() {
+		int from;
+		if (node == root) {
+			from = 0;
+		} else if (node.getSuffixLink() != null) {
+			node = node.getSuffixLink();
+			depth--;
+			from = depth;
+		} else {
+			node = root;
+			depth = 0;
+			from = 0;
+		}
+		edge = null;
+		matched = 0;
+		while (from < window.size()) {
+			edge = node.getEdgeStartingCode(window.get(from));
+			matched = Math.min(edge.getLength(), window.size() - from);
+			from += matched;
+			descend();
+		}
+	}
+
+	/**
+	 * Moves the point onto the node at the end of the current edge if the
+	 * whole edge has been matched.
+	 */
+	private void descend() {
+		if (matched == edge.getLength() && edge.getTerminal() != null) {
+			node = edge.getTerminal();
+			depth += matched;
+			edge = null;
+			matched = 0;
+		}
+	}
+
+	/**
+	 * A first in, first out queue of <code>int</code> values in a circular
+	 * array.
+	 */
+	private static final class IntQueue {
+		private int[] values = new int[16];
+		private int head = 0;
+		private int size = 0;
+
+		void add(int value) {
+			if (size == values.length) {
+				int[] grown = new int[size * 2];
+				for (int i = 0; i < size; i++)
+					grown[i] = get(i);
+				values = grown;
+				head = 0;
+			}
+			values[(head + size++) & (values.length - 1)] = value;
+		}
+
+		int remove() {
+			int value = values[head];
+			head = (head + 1) & (values.length - 1);
+			size--;
+			return value;
+		}
+
+		int get(int index) {
+			return values[(head + index) & (values.length - 1)];
+		}
+
+		int size() {
+			return size;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * An estimate of the heap used by a {@link SuffixTree}, as returned by
+ * {@link SuffixTree#memoryReport()}.
+ *
+ * Sizes are worked out from the fields of each object rather than measured,
+ * assuming a 64 bit JVM with compressed references, which is the default for
+ * heaps under 32GB: a 12 byte object header, 4 byte references, a 16 byte
+ * array header and objects padded to a multiple of 8 bytes. The items
+ * themselves are not counted, as they belong to the caller and small boxed
+ * values are usually shared.
+ *
+ * @author Max Garfinkel
+ */
+public final class MemoryReport {
+
+	static final int HEADER = 12;
+	static final int REFERENCE = 4;
+	static final int ARRAY_HEADER = 16;
+
+	/** A Node: nine references and four ints. */
+	static final long NODE = align(HEADER + 9 * REFERENCE + 4 * 4);
+	/** An Edge: four references and two ints. */
+	static final long EDGE = align(HEADER + 4 * REFERENCE + 2 * 4);
+	/** A boxed Integer. */
+	static final long INTEGER = align(HEADER + 4);
+
+	private final int nodes;
+	private final int internalNodes;
+	private final int leaves;
+	private final int edges;
+	private final long nodeBytes;
+	private final long edgeBytes;
+	private final long childMapBytes;
+	private final long terminalSetBytes;
+	private final long sequenceBytes;
+	private final long symbolBytes;
+	private final long items;
+
+	MemoryReport(int nodes, int leaves, long childMapBytes,
+			long terminalSetBytes, long sequenceBytes, long symbolBytes,
+			long items) {
+		this.nodes = nodes;
+		this.internalNodes = nodes - 1;
+		this.leaves = leaves;
+		this.edges = nodes - 1 + leaves;
+		this.nodeBytes = nodes * NODE;
+		this.edgeBytes = edges * EDGE;
+		this.childMapBytes = childMapBytes;
+		this.terminalSetBytes = terminalSetBytes;
+		this.sequenceBytes = sequenceBytes;
+		this.symbolBytes = symbolBytes;
+		this.items = items;
+	}
+
+	static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	/**
+	 * @return The size of an array of the given length.
+	 */
+	static long array(int length, int elementBytes) {
+		return align(ARRAY_HEADER + (long) length * elementBytes);
+	}
+
+	/**
+	 * @return The size of a <code>java.util.HashMap</code> holding the given
+	 *         number of entries, not counting the keys and values. An empty
+	 *         map has no table, as it is only allocated by the first put.
+	 */
+	static long hashMap(int size) {
+		long map = align(HEADER + 4 * REFERENCE + 3 * 4 + 4);
+		if (size == 0)
+			return map;
+		int capacity = 16;
+		while (capacity * 3 / 4 < size)
+			capacity *= 2;
+		long entry = align(HEADER + 4 + 3 * REFERENCE);
+		return map + array(capacity, REFERENCE) + size * entry;
+	}
+
+	/**
+	 * @return The size of a <code>java.util.HashSet</code> holding the given
+	 *         number of entries, not counting the entries themselves.
+	 */
+	static long hashSet(int size) {
+		return align(HEADER + REFERENCE) + hashMap(size);
+	}
+
+	/**
+	 * @return The number of nodes, including the root.
+	 */
+	public int getNodeCount() {
+		return nodes;
+	}
+
+	/**
+	 * @return The number of nodes other than the root. Every one has at least
+	 *         two children.
+	 */
+	public int getInternalNodeCount() {
+		return internalNodes;
+	}
+
+	/**
+	 * @return The number of leaves. A leaf is an edge with no node at its
+	 *         end, so has no object of its own.
+	 */
+	public int getLeafCount() {
+		return leaves;
+	}
+
+	/**
+	 * @return The number of edges, one into every node but the root and one
+	 *         into every leaf.
+	 */
+	public int getEdgeCount() {
+		return edges;
+	}
+
+	/**
+	 * @return The bytes used by the nodes, not counting their child maps and
+	 *         terminal sets.
+	 */
+	public long getNodeBytes() {
+		return nodeBytes;
+	}
+
+	/**
+	 * @return The bytes used by the edges.
+	 */
+	public long getEdgeBytes() {
+		return edgeBytes;
+	}
+
+	/**
+	 * @return The bytes used by the arrays and tables of nodes with more than
+	 *         two children.
+	 */
+	public long getChildMapBytes() {
+		return childMapBytes;
+	}
+
+	/**
+	 * @return The bytes used by the sets of sequence terminals held by nodes.
+	 */
+	public long getTerminalSetBytes() {
+		return terminalSetBytes;
+	}
+
+	/**
+	 * @return The bytes used by the master sequence: its pages of item codes
+	 *         and its record of where each sequence ends.
+	 */
+	public long getSequenceBytes() {
+		return sequenceBytes;
+	}
+
+	/**
+	 * @return The bytes used by the table mapping items to codes, not
+	 *         counting the items.
+	 */
+	public long getSymbolBytes() {
+		return symbolBytes;
+	}
+
+	/**
+	 * @return The total of all the byte counts.
+	 */
+	public long getTotalBytes() {
+		return nodeBytes + edgeBytes + childMapBytes + terminalSetBytes
+				+ sequenceBytes + symbolBytes;
+	}
+
+	/**
+	 * @return The number of items indexed, counting the terminal of each
+	 *         sequence.
+	 */
+	public long getItemCount() {
+		return items;
+	}
+
+	/**
+	 * @return The total bytes divided by the number of items, or zero for an
+	 *         empty tree.
+	 */
+	public double getBytesPerItem() {
+		return items == 0 ? 0 : (double) getTotalBytes() / items;
+	}
+
+	@Override
+	public String toString() {
+		return "MemoryReport[nodes=" + nodes + ", leaves=" + leaves
+				+ ", edges=" + edges + ", nodeBytes=" + nodeBytes
+				+ ", edgeBytes=" + edgeBytes + ", childMapBytes="
+				+ childMapBytes + ", terminalSetBytes=" + terminalSetBytes
+				+ ", sequenceBytes=" + sequenceBytes + ", symbolBytes="
+				+ symbolBytes + ", totalBytes=" + getTotalBytes()
+				+ ", bytesPerItem=" + getBytesPerItem() + "]";
+	}
+}
@@ -1,19 +1,43 @@
 package com.maxgarfinkel.suffixTree;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
+/**
+ * A node of a {@link SuffixTree}.
+ * 
+ * Most nodes have only two or three children, so the child edges are held in
+ * whichever container is smallest for their number: two fields for up to two
+ * children, an array scanned in turn for up to {@link #SCAN_LIMIT}, and an
+ * {@link EdgeTable} beyond that, as for the root. Edges are found by the code
+ * of their first item, which is read from the master sequence rather than
+ * stored. The set of terminals is only created for nodes which have a leaf
+ * starting with one.
+ */
 class Node<T,S extends Iterable<T>> implements Iterable<Edge<T,S>> {
-	private final Map<T, Edge<T,S>> edges = new HashMap<T, Edge<T,S>>();
-	private final Edge<T,S> incomingEdge;
-	private Set<SequenceTerminal<S>> sequenceTerminals = new HashSet<SequenceTerminal<S>>();
+
+	static final int SCAN_LIMIT = 8;
+
+	private Edge<T,S> first;
+	private Edge<T,S> second;
+	private Edge<T,S>[] few;
+	private EdgeTable<T,S> many;
+	private int edgeCount = 0;
+	private Edge<T,S> incomingEdge;
+	private Set<SequenceTerminal<S>> sequenceTerminals = null;
 	private final Sequence<T,S> sequence;
 	private final SuffixTree<T,S> tree;
 	private Node<T,S> link = null;
+	private int leafCount = 0;
+	private int sequenceCount = 0;
+	private int depth = 0;
 
 	/**
 	 * Create a new node, for the supplied tree and sequence.
@@ -38,38 +62,42 @@ class Node<T,S extends Iterable<T>> implements Iterable<Edge<T,S>> {
 	 *            The suffix to insert.
 	 * @param activePoint
 	 *            The active point to insert it at.
+	 * @return True if the remainder of the suffix must still be inserted
+	 *         during this step. False if the step is complete.
 	 */
-	@SuppressWarnings("unchecked")
-	void insert(Suffix<T,S> suffix, ActivePoint<T,S> activePoint) {
-		Object item = suffix.getEndItem();
-		
-		if (edges.containsKey(item)) {
+	boolean insert(Suffix<T,S> suffix, ActivePoint<T,S> activePoint) {
+		int code = suffix.getEndCode();
+		Edge<T,S> existing = getEdgeStartingCode(code);
+		if (existing != null) {
 			if (tree.isNotFirstInsert() && activePoint.getNode() != tree.getRoot())
 				tree.setSuffixLink(activePoint.getNode());
-			activePoint.setEdge(edges.get(item));
+			activePoint.setEdge(existing);
 			activePoint.incrementLength();
+			return false;
 		} else {
-			saveSequenceTerminal(item);
+			saveSequenceTerminal(code);
 			Edge<T,S> newEdge = new Edge<T,S>(suffix.getEndPosition()-1, this,
 					sequence, tree);
-			edges.put((T) suffix.getEndItem(), newEdge);
+			add(newEdge);
+			BuildCounters counters = tree.getBuildCounters();
+			if (counters != null)
+				counters.leavesCreated++;
 			suffix.decrement();
 			activePoint.updateAfterInsert(suffix);
 			
 			if(tree.isNotFirstInsert() && !this.equals(tree.getRoot())){
-				tree.getLastNodeInserted().setSuffixLink(this);
+				tree.setSuffixLink(this);
 			}
-			if (suffix.isEmpty())
-				return;
-			else
-				tree.insert(suffix);
+			return !suffix.isEmpty();
 		}
 	}
 
-	private void saveSequenceTerminal(Object item) {
-		if(item.getClass().equals(SequenceTerminal.class)){
+	private void saveSequenceTerminal(int code) {
+		if(code < 0){
 			@SuppressWarnings("unchecked")
-			SequenceTerminal<S> terminal = (SequenceTerminal<S>) item;
+			SequenceTerminal<S> terminal = (SequenceTerminal<S>) sequence.decode(code);
+			if (sequenceTerminals == null)
+				sequenceTerminals = new HashSet<SequenceTerminal<S>>();
 			sequenceTerminals.add(terminal);
 		}
 	}
@@ -85,10 +113,98 @@ class Node<T,S extends Iterable<T>> implements Iterable<Edge<T,S>> {
 	 *             edge of this node.
 	 */
 	void insert(Edge<T,S> edge) {
-		if (edges.containsKey(edge.getStartItem()))
+		if (getEdgeStartingCode(edge.getStartCode()) != null)
 			throw new IllegalArgumentException("Item " + edge.getStartItem()
 					+ " already exists in node " + toString());
-		edges.put(edge.getStartItem(), edge);
+		add(edge);
+	}
+
+	private void add(Edge<T,S> edge) {
+		if (many != null) {
+			many.add(edge);
+		} else if (few != null) {
+			if (edgeCount == SCAN_LIMIT) {
+				many = new EdgeTable<T,S>(edgeCount + 1);
+				for (Edge<T,S> child : few)
+					many.add(child);
+				many.add(edge);
+				few = null;
+			} else {
+				if (edgeCount == few.length)
+					few = Arrays.copyOf(few, SCAN_LIMIT);
+				few[edgeCount] = edge;
+			}
+		} else if (edgeCount == 0) {
+			first = edge;
+		} else if (edgeCount == 1) {
+			second = edge;
+		} else {
+			few = Edge.newArray(4);
+			few[0] = first;
+			few[1] = second;
+			few[2] = edge;
+			first = null;
+			second = null;
+		}
+		edgeCount++;
+	}
+
+	/**
+	 * Removes a leaf edge of this node, together with the record of its
+	 * terminal if the edge holds nothing else.
+	 * 
+	 * @param edge
+	 *            The edge to remove.
+	 */
+	void remove(Edge<T,S> edge) {
+		int code = edge.getStartCode();
+		if (getEdgeStartingCode(code) == null)
+			return;
+		if (many != null) {
+			many.remove(code);
+		} else if (few != null) {
+			int index = 0;
+			while (few[index] != edge)
+				index++;
+			few[index] = few[edgeCount - 1];
+			few[edgeCount - 1] = null;
+		} else if (first == edge) {
+			first = second;
+			second = null;
+		} else {
+			second = null;
+		}
+		edgeCount--;
+		if (many != null && edgeCount <= SCAN_LIMIT / 2) {
+			few = Edge.newArray(SCAN_LIMIT);
+			int index = 0;
+			for (int i = 0; i < many.capacity(); i++) {
+				if (many.slotAt(i) != null)
+					few[index++] = many.slotAt(i);
+			}
+			many = null;
+		}
+		if (few != null && edgeCount <= 2) {
+			first = few[0];
+			second = few[1];
+			few = null;
+		}
+		if (sequenceTerminals != null && code < 0) {
+			sequenceTerminals.remove(sequence.decode(code));
+			if (sequenceTerminals.isEmpty())
+				sequenceTerminals = null;
+		}
+	}
+
+	/**
+	 * @return The edge leading to this node, null for the root.
+	 */
+	Edge<T,S> getIncomingEdge() {
+		return incomingEdge;
+	}
+
+	void setIncomingEdge(Edge<T,S> incomingEdge) {
+		this.incomingEdge = incomingEdge;
 	}
 
 	/**
@@ -98,7 +214,34 @@ class Node<T,S extends Iterable<T>> implements Iterable<Edge<T,S>> {
 	 * @return The edge extending from this node starting with item.
 	 */
 	Edge<T,S> getEdgeStarting(Object item) {
-			return edges.get(item);
+		if (item == null)
+			return null;
+		return getEdgeStartingCode(sequence.lookup(item));
+	}
+
+	/**
+	 * Retrieves the edge starting with the item with the given code or null
+	 * if none exists.
+	 * 
+	 * @param code
+	 *            The code of the item in the master sequence.
+	 * @return The edge extending from this node starting with the item.
+	 */
+	Edge<T,S> getEdgeStartingCode(int code) {
+		if (many != null)
+			return many.get(code);
+		if (few != null) {
+			for (int i = 0; i < edgeCount; i++) {
+				if (few[i].getStartCode() == code)
+					return few[i];
+			}
+			return null;
+		}
+		if (first != null && first.getStartCode() == code)
+			return first;
+		if (second != null && second.getStartCode() == code)
+			return second;
+		return null;
 	}
 
 	/**
@@ -116,7 +259,57 @@ class Node<T,S extends Iterable<T>> implements Iterable<Edge<T,S>> {
 	 * @return The count of the number edges extending from this node.
 	 */
 	int getEdgeCount() {
-		return edges.size();
+		return edgeCount;
+	}
+
+	/**
+	 * Copies the child edges onto a stack, without the allocation of an
+	 * iterator.
+	 * 
+	 * @param stack
+	 *            The stack, with room for {@link #getEdgeCount()} more edges.
+	 * @param top
+	 *            The number of edges already on the stack.
+	 * @return The number of edges on the stack afterwards.
+	 */
+	int pushEdges(Edge<T,S>[] stack, int top) {
+		if (many != null) {
+			for (int i = 0; i < many.capacity(); i++) {
+				if (many.slotAt(i) != null)
+					stack[top++] = many.slotAt(i);
+			}
+		} else if (few != null) {
+			for (int i = 0; i < edgeCount; i++)
+				stack[top++] = few[i];
+		} else {
+			if (first != null)
+				stack[top++] = first;
+			if (second != null)
+				stack[top++] = second;
+		}
+		return top;
+	}
+
+	/**
+	 * @return The estimated bytes used by the array or table holding the
+	 *         child edges of a node with more than two.
+	 */
+	long childMapBytes() {
+		if (many != null)
+			return MemoryReport.align(MemoryReport.HEADER
+					+ MemoryReport.REFERENCE + 2 * 4)
+					+ MemoryReport.array(many.capacity(), MemoryReport.REFERENCE);
+		if (few != null)
+			return MemoryReport.array(few.length, MemoryReport.REFERENCE);
+		return 0;
+	}
+
+	/**
+	 * @return The estimated bytes used by the set of sequence terminals.
+	 */
+	long terminalSetBytes() {
+		return sequenceTerminals == null ? 0 : MemoryReport
+				.hashSet(sequenceTerminals.size());
 	}
 
 	/**
@@ -124,7 +317,33 @@ class Node<T,S extends Iterable<T>> implements Iterable<Edge<T,S>> {
 	 *         guaranteed.
 	 */
 	public Iterator<Edge<T,S>> iterator() {
-		return edges.values().iterator();
+		return new Iterator<Edge<T,S>>() {
+			private int index = 0;
+			private int returned = 0;
+
+			public boolean hasNext() {
+				return returned < edgeCount;
+			}
+
+			public Edge<T,S> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				returned++;
+				if (many != null) {
+					while (many.slotAt(index) == null)
+						index++;
+					return many.slotAt(index++);
+				}
+				if (few != null)
+					return few[index++];
+				return index++ == 0 ? first : second;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException(
+						"Remove is not supported.");
+			}
+		};
 	}
 
 	/**
@@ -146,6 +365,49 @@ class Node<T,S extends Iterable<T>> implements Iterable<Edge<T,S>> {
 		link = node;
 	}
 
+	/**
+	 * Retrieves the number of leaves below this node, as recorded by the last
+	 * annotation of the tree.
+	 * 
+	 * @return The number of leaves below this node.
+	 */
+	int getLeafCount() {
+		return leafCount;
+	}
+
+	void setLeafCount(int leafCount) {
+		this.leafCount = leafCount;
+	}
+
+	/**
+	 * Retrieves the number of distinct sequences with a leaf below this node,
+	 * as recorded by the last annotation of the tree.
+	 * 
+	 * @return The number of sequences containing the string this node
+	 *         represents.
+	 */
+	int getSequenceCount() {
+		return sequenceCount;
+	}
+
+	void setSequenceCount(int sequenceCount) {
+		this.sequenceCount = sequenceCount;
+	}
+
+	/**
+	 * Retrieves the number of items on the path from the root to this node,
+	 * as recorded by the last annotation of the tree.
+	 * 
+	 * @return The string depth of this node.
+	 */
+	int getDepth() {
+		return depth;
+	}
+
+	void setDepth(int depth) {
+		this.depth = depth;
+	}
+
 	@Override
 	public String toString() {
 		if (incomingEdge == null)
@@ -155,11 +417,31 @@ class Node<T,S extends Iterable<T>> implements Iterable<Edge<T,S>> {
 		}
 	}
 
+	/**
+	 * Records terminals of leaves which start at this node, as happens when
+	 * another tree is merged into this one.
+	 * 
+	 * @param terminals
+	 *            The terminals to add.
+	 */
+	void addSuffixTerminals(Collection<SequenceTerminal<S>> terminals) {
+		if (terminals.isEmpty())
+			return;
+		if (sequenceTerminals == null)
+			sequenceTerminals = new HashSet<SequenceTerminal<S>>();
+		sequenceTerminals.addAll(terminals);
+	}
+
 	public Collection<SequenceTerminal<S>> getSuffixTerminals() {
+		if (sequenceTerminals == null)
+			return Collections.emptySet();
 		return sequenceTerminals;
 	}
 	
 	public Collection<Edge<T,S>> getEdges(){
-		return edges.values();
+		List<Edge<T,S>> edges = new ArrayList<Edge<T,S>>(edgeCount);
+		for (Edge<T,S> edge : this)
+			edges.add(edge);
+		return edges;
 	}
 }
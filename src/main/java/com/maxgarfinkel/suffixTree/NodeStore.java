@@ -0,0 +1,288 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the nodes of a {@link PrimitiveSuffixTree} as a structure of arrays.
+ * A node is an <code>int</code> index into a set of parallel arrays holding,
+ * for each node, the range <code>[start, end)</code> of the text covered by
+ * its incoming edge, the first symbol of that edge, its first child, its next
+ * sibling, its suffix link, its child table and, for leaves, the position in
+ * the text at which the suffix it terminates starts.
+ *
+ * The arrays are {@link Pages} taken from a {@link TreeStorage}, so they may
+ * live outside the heap, and once the first page is full adding nodes never
+ * copies the existing ones.
+ *
+ * Children form a singly linked list through the sibling array. Nodes with
+ * more than {@link #SCAN_LIMIT} children, such as the root, are given their
+ * own {@link ChildTable} as well, so that lookups stay constant time. The
+ * tables are held on the heap, and the node owning each one is stored, so
+ * when a stored tree is reopened every table is rebuilt from its node's
+ * sibling list before the first query. Queries never change the store, so
+ * several threads may query a finished tree at once.
+ * Children starting with a terminal are never looked up, since every
+ * terminal is unique, so they only appear in the list.
+ *
+ * @author Max Garfinkel
+ */
+final class NodeStore {
+
+	static final int NONE = -1;
+
+	static final int SCAN_LIMIT = 8;
+
+	private final Pages start;
+	private final Pages end;
+	private final Pages symbol;
+	private final Pages firstChild;
+	private final Pages nextSibling;
+	private final Pages link;
+	private final Pages suffixStart;
+	private final Pages table;
+	private final Pages tableNode;
+
+	private ChildTable[] tables;
+	private int tableCount;
+	private int size;
+
+	/**
+	 * Opens the nodes held in the given storage.
+	 *
+	 * @param storage
+	 *            The storage holding the nodes.
+	 * @param size
+	 *            The number of nodes already in the storage.
+	 * @param tableCount
+	 *            The number of child tables already allocated.
+	 */
+	NodeStore(TreeStorage storage, int size, int tableCount) {
+		start = new Pages(storage, "start", 4);
+		end = new Pages(storage, "end", 4);
+		symbol = new Pages(storage, "symbol", 4);
+		firstChild = new Pages(storage, "firstChild", 4);
+		nextSibling = new Pages(storage, "nextSibling", 4);
+		link = new Pages(storage, "link", 4);
+		suffixStart = new Pages(storage, "suffixStart", 4);
+		table = new Pages(storage, "table", 4);
+		tableNode = new Pages(storage, "tableNode", 4);
+		this.size = size;
+		this.tableCount = tableCount;
+		this.tables = new ChildTable[Math.max(16, tableCount)];
+		ensureCapacity(size);
+		tableNode.ensureCapacity(tableCount);
+		for (int i = 0; i < tableCount; i++)
+			tables[i] = buildTable(tableNode.getInt(i));
+	}
+
+	/**
+	 * Creates a new node with no children and no suffix link.
+	 *
+	 * @param start
+	 *            The position of the first item on the incoming edge.
+	 * @param end
+	 *            The position after the last item on the incoming edge.
+	 * @param symbol
+	 *            The symbol at <code>start</code>.
+	 * @param suffixStart
+	 *            For a leaf, the position at which its suffix starts, -1
+	 *            otherwise.
+	 * @return The new node.
+	 */
+	int newNode(int start, int end, int symbol, int suffixStart) {
+		int node = size++;
+		ensureCapacity(size);
+		this.start.setInt(node, start);
+		this.end.setInt(node, end);
+		this.symbol.setInt(node, symbol);
+		this.firstChild.setInt(node, NONE);
+		this.nextSibling.setInt(node, NONE);
+		this.link.setInt(node, NONE);
+		this.suffixStart.setInt(node, suffixStart);
+		this.table.setInt(node, NONE);
+		return node;
+	}
+
+	private void ensureCapacity(int capacity) {
+		start.ensureCapacity(capacity);
+		end.ensureCapacity(capacity);
+		symbol.ensureCapacity(capacity);
+		firstChild.ensureCapacity(capacity);
+		nextSibling.ensureCapacity(capacity);
+		link.ensureCapacity(capacity);
+		suffixStart.ensureCapacity(capacity);
+		table.ensureCapacity(capacity);
+	}
+
+	int getStart(int node) {
+		return start.getInt(node);
+	}
+
+	/**
+	 * Moves the start of a node's incoming edge, as happens when the edge is
+	 * split.
+	 *
+	 * @param node
+	 *            The node.
+	 * @param start
+	 *            The new start position.
+	 * @param symbol
+	 *            The symbol at the new start position.
+	 */
+	void setStart(int node, int start, int symbol) {
+		this.start.setInt(node, start);
+		this.symbol.setInt(node, symbol);
+	}
+
+	int getEnd(int node) {
+		return end.getInt(node);
+	}
+
+	int getSymbol(int node) {
+		return symbol.getInt(node);
+	}
+
+	int getFirstChild(int node) {
+		return firstChild.getInt(node);
+	}
+
+	int getNextSibling(int node) {
+		return nextSibling.getInt(node);
+	}
+
+	int getLink(int node) {
+		return link.getInt(node);
+	}
+
+	void setLink(int node, int target) {
+		link.setInt(node, target);
+	}
+
+	int getSuffixStart(int node) {
+		return suffixStart.getInt(node);
+	}
+
+	boolean isLeaf(int node) {
+		return getFirstChild(node) == NONE;
+	}
+
+	/**
+	 * Retrieves the child of a node whose edge starts with the given symbol.
+	 *
+	 * @param node
+	 *            The parent node.
+	 * @param symbol
+	 *            The first symbol of the edge.
+	 * @return The child, or {@link #NONE} if there is none.
+	 */
+	int getChild(int node, int symbol) {
+		if (symbol < 0)
+			return NONE;
+		int index = table.getInt(node);
+		if (index != NONE)
+			return tables[index].get(symbol, NONE);
+		for (int child = getFirstChild(node); child != NONE; child = getNextSibling(child)) {
+			if (getSymbol(child) == symbol)
+				return child;
+		}
+		return NONE;
+	}
+
+	/**
+	 * Adds a child to a node. The node must not already have a child starting
+	 * with the same symbol.
+	 *
+	 * @param node
+	 *            The parent node.
+	 * @param child
+	 *            The new child.
+	 */
+	void addChild(int node, int child) {
+		nextSibling.setInt(child, getFirstChild(node));
+		firstChild.setInt(node, child);
+		int index = table.getInt(node);
+		if (index != NONE) {
+			if (getSymbol(child) >= 0)
+				tables[index].put(getSymbol(child), child);
+			return;
+		}
+		int count = 0;
+		for (int c = child; c != NONE; c = getNextSibling(c))
+			count++;
+		if (count > SCAN_LIMIT) {
+			ChildTable children = buildTable(node);
+			if (tableCount == tables.length)
+				tables = Arrays.copyOf(tables, tableCount * 2);
+			tables[tableCount] = children;
+			tableNode.ensureCapacity(tableCount + 1);
+			tableNode.setInt(tableCount, node);
+			table.setInt(node, tableCount++);
+		}
+	}
+
+	/**
+	 * Replaces a child of a node with a new node starting with the same
+	 * symbol, as happens when the edge to the child is split.
+	 *
+	 * @param node
+	 *            The parent node.
+	 * @param child
+	 *            The existing child.
+	 * @param replacement
+	 *            The node to take its place.
+	 */
+	void replaceChild(int node, int child, int replacement) {
+		int previous = NONE;
+		int current = getFirstChild(node);
+		while (current != child) {
+			previous = current;
+			current = getNextSibling(current);
+		}
+		nextSibling.setInt(replacement, getNextSibling(child));
+		nextSibling.setInt(child, NONE);
+		if (previous == NONE)
+			firstChild.setInt(node, replacement);
+		else
+			nextSibling.setInt(previous, replacement);
+		int index = table.getInt(node);
+		if (index != NONE)
+			tables[index].put(getSymbol(replacement), replacement);
+	}
+
+	private ChildTable buildTable(int node) {
+		ChildTable children = new ChildTable();
+		for (int child = getFirstChild(node); child != NONE; child = getNextSibling(child)) {
+			if (getSymbol(child) >= 0)
+				children.put(getSymbol(child), child);
+		}
+		return children;
+	}
+
+	/**
+	 * Lists the sections needed to save the nodes.
+	 *
+	 * @param sections
+	 *            The list to add the sections to.
+	 */
+	void addSections(List<TreeFile.Section> sections) {
+		for (Pages pages : new Pages[] { start, end, symbol, firstChild,
+				nextSibling, link, suffixStart, table })
+			sections.add(new TreeFile.Section(pages, size));
+		sections.add(new TreeFile.Section(tableNode, tableCount));
+	}
+
+	/**
+	 * @return The number of child tables allocated.
+	 */
+	int getTableCount() {
+		return tableCount;
+	}
+
+	/**
+	 * @return The number of nodes, including the root.
+	 */
+	int size() {
+		return size;
+	}
+}
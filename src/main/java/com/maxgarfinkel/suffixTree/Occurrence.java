@@ -0,0 +1,58 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * The position at which a pattern occurs in one of the sequences of a
+ * {@link SuffixTree}.
+ *
+ * @author Max Garfinkel
+ */
+public final class Occurrence implements Comparable<Occurrence> {
+
+	private final int sequenceId;
+	private final int offset;
+
+	Occurrence(int sequenceId, int offset) {
+		this.sequenceId = sequenceId;
+		this.offset = offset;
+	}
+
+	/**
+	 * @return The id of the sequence, which is the number of sequences added
+	 *         to the tree before it.
+	 */
+	public int getSequenceId() {
+		return sequenceId;
+	}
+
+	/**
+	 * @return The index within the sequence of the first item of the
+	 *         occurrence.
+	 */
+	public int getOffset() {
+		return offset;
+	}
+
+	public int compareTo(Occurrence o) {
+		if (sequenceId != o.sequenceId)
+			return sequenceId < o.sequenceId ? -1 : 1;
+		return offset < o.offset ? -1 : offset == o.offset ? 0 : 1;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == null || o.getClass() != this.getClass())
+			return false;
+		Occurrence other = (Occurrence) o;
+		return other.sequenceId == sequenceId && other.offset == offset;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * sequenceId + offset;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + sequenceId + ", " + offset + ")";
+	}
+}
@@ -0,0 +1,129 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * A growable array of <code>int</code>, <code>char</code> or
+ * <code>byte</code> values held in a named series of pages from a
+ * {@link TreeStorage}. Growing it only copies the values already held while
+ * they fit in the first page, which starts small on the heap and in direct
+ * buffers.
+ *
+ * @author Max Garfinkel
+ */
+final class Pages {
+
+	private final TreeStorage storage;
+	private final String name;
+	private final int width;
+	private final int shift;
+	private final int mask;
+	private ByteBuffer[] pages = new ByteBuffer[0];
+	private int held = 0;
+
+	/**
+	 * @param storage
+	 *            The storage to take pages from.
+	 * @param name
+	 *            The name of the series of pages.
+	 * @param width
+	 *            The size of each value in bytes, 1, 2 or 4.
+	 */
+	Pages(TreeStorage storage, String name, int width) {
+		this.storage = storage;
+		this.name = name;
+		this.width = width;
+		this.shift = Integer.numberOfTrailingZeros(TreeStorage.PAGE_BYTES / width);
+		this.mask = (1 << shift) - 1;
+	}
+
+	/**
+	 * Makes sure values up to, but not including, the given index may be
+	 * read and written.
+	 *
+	 * @param capacity
+	 *            The number of values required.
+	 */
+	void ensureCapacity(int capacity) {
+		if (capacity <= held)
+			return;
+		if (held <= mask) {
+			int values = Math.max(held, TreeStorage.FIRST_PAGE_BYTES / width);
+			while (values < capacity && values <= mask)
+				values <<= 1;
+			ByteBuffer first = storage.growFirstPage(pages.length == 0 ? null
+					: pages[0], values * width);
+			if (first != null) {
+				if (pages.length == 0)
+					pages = new ByteBuffer[1];
+				pages[0] = first;
+				held = values;
+				if (capacity <= held)
+					return;
+			}
+		}
+		int count = (int) (((long) capacity + mask) >>> shift);
+		int index = pages.length;
+		pages = Arrays.copyOf(pages, count);
+		for (; index < count; index++)
+			pages[index] = storage.page(name, index);
+		held = (int) Math.min(Integer.MAX_VALUE, (long) count << shift);
+	}
+
+	/**
+	 * Writes the first values held to a channel.
+	 *
+	 * @param channel
+	 *            The channel to write to.
+	 * @param count
+	 *            The number of values to write.
+	 * @throws IOException
+	 *             if the channel cannot be written.
+	 */
+	void writeTo(WritableByteChannel channel, int count) throws IOException {
+		long remaining = (long) count * width;
+		for (int i = 0; remaining > 0; i++) {
+			ByteBuffer page = pages[i].duplicate();
+			page.clear();
+			page.limit((int) Math.min(remaining, page.capacity()));
+			remaining -= page.remaining();
+			while (page.hasRemaining())
+				channel.write(page);
+		}
+	}
+
+	String getName() {
+		return name;
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getInt(int index) {
+		return pages[index >>> shift].getInt((index & mask) << 2);
+	}
+
+	void setInt(int index, int value) {
+		pages[index >>> shift].putInt((index & mask) << 2, value);
+	}
+
+	char getChar(int index) {
+		return pages[index >>> shift].getChar((index & mask) << 1);
+	}
+
+	void setChar(int index, char value) {
+		pages[index >>> shift].putChar((index & mask) << 1, value);
+	}
+
+	byte getByte(int index) {
+		return pages[index >>> shift].get(index & mask);
+	}
+
+	void setByte(int index, byte value) {
+		pages[index >>> shift].put(index & mask, value);
+	}
+}
@@ -0,0 +1,93 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds a generalised suffix tree over many sequences using several
+ * threads.
+ * 
+ * The sequences are split into partitions, a tree is built for each
+ * partition on a fork join pool, and the trees are merged pairwise, with
+ * each merge itself running in parallel across the edges leaving the root.
+ * The result is the same tree that adding the sequences one by one, in the
+ * same order, would give, and further sequences may be added to it.
+ * 
+ * @author Max Garfinkel
+ * 
+ * @param <I>
+ *            The type of the item within the sequence.
+ * @param <S>
+ *            The sequence type, which must iterate over items of type
+ *            <code>I</code>
+ */
+public class ParallelSuffixTreeBuilder<I, S extends Iterable<I>> {
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a builder which runs in the common fork join pool.
+	 */
+	public ParallelSuffixTreeBuilder() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a builder which runs in the given pool.
+	 * 
+	 * @param pool
+	 *            The pool to build in.
+	 */
+	public ParallelSuffixTreeBuilder(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Builds a suffix tree containing the given sequences. Sequence ids are
+	 * assigned in list order.
+	 * 
+	 * @param sequences
+	 *            The sequences to index.
+	 * @return The tree.
+	 */
+	public SuffixTree<I, S> build(List<S> sequences) {
+		int partitions = pool.getParallelism() * 4;
+		int threshold = Math.max(1, (sequences.size() + partitions - 1) / partitions);
+		SuffixTree<I, S> tree = pool.invoke(new Build(sequences, threshold));
+		TreeMerger.linkSuffixes(tree, pool);
+		return tree;
+	}
+
+	private final class Build extends RecursiveTask<SuffixTree<I, S>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<S> sequences;
+		private final int threshold;
+
+		Build(List<S> sequences, int threshold) {
+			this.sequences = sequences;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected SuffixTree<I, S> compute() {
+			if (sequences.size() <= threshold) {
+				SuffixTree<I, S> tree = new SuffixTree<I, S>();
+				for (S sequence : sequences)
+					tree.add(sequence);
+				return tree;
+			}
+			int middle = sequences.size() / 2;
+			Build left = new Build(sequences.subList(0, middle), threshold);
+			Build right = new Build(sequences.subList(middle, sequences.size()),
+					threshold);
+			left.fork();
+			SuffixTree<I, S> rightTree = right.compute();
+			SuffixTree<I, S> leftTree = left.join();
+			TreeMerger.merge(leftTree, rightTree, right.sequences, pool);
+			return leftTree;
+		}
+	}
+}
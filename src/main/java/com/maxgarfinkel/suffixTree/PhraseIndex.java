@@ -0,0 +1,106 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * Indexes documents by their words, for finding the documents containing a
+ * phrase. Each document is tokenized with a {@link Tokenizer} and its token
+ * ids are added to an {@link IntSuffixTree}, so the tree has one leaf per
+ * word rather than one per character, and a phrase is matched word by word.
+ * 
+ * Documents may be tokenized on any number of threads sharing the cache, but
+ * adding them to the index and searching it must not overlap.
+ * 
+ * @author Max Garfinkel
+ */
+public class PhraseIndex {
+
+	private final Tokenizer tokenizer;
+	private final IntSuffixTree tree = new IntSuffixTree();
+
+	/**
+	 * Creates an empty index with its own cache of words.
+	 */
+	public PhraseIndex() {
+		this(new Tokenizer(new WordCache()));
+	}
+
+	/**
+	 * Creates an empty index which tokenizes with the given tokenizer.
+	 * 
+	 * @param tokenizer
+	 *            The tokenizer.
+	 */
+	public PhraseIndex(Tokenizer tokenizer) {
+		this.tokenizer = tokenizer;
+	}
+
+	/**
+	 * Adds a document.
+	 * 
+	 * @param text
+	 *            The text of the document.
+	 * @return The id of the document, which is the number of documents added
+	 *         before it.
+	 */
+	public int add(CharSequence text) {
+		return add(tokenizer.tokenize(text));
+	}
+
+	/**
+	 * Adds a document which has already been tokenized by this index's
+	 * tokenizer.
+	 * 
+	 * @param tokens
+	 *            The ids of the tokens of the document.
+	 * @return The id of the document.
+	 */
+	public int add(int[] tokens) {
+		return tree.add(tokens);
+	}
+
+	/**
+	 * Tests whether any document contains the given phrase.
+	 * 
+	 * @param phrase
+	 *            The words to search for.
+	 * @return True if some document contains the words of the phrase
+	 *         consecutively.
+	 */
+	public boolean contains(CharSequence phrase) {
+		int[] tokens = tokenizer.lookup(phrase);
+		return tokens != null && tree.contains(tokens);
+	}
+
+	/**
+	 * Retrieves the documents containing the given phrase.
+	 * 
+	 * @param phrase
+	 *            The words to search for.
+	 * @return The ids of the documents in ascending order, empty if there are
+	 *         none.
+	 */
+	public int[] documentsContaining(CharSequence phrase) {
+		int[] tokens = tokenizer.lookup(phrase);
+		return tokens == null ? new int[0] : tree.sequencesContaining(tokens);
+	}
+
+	/**
+	 * @return The number of documents added.
+	 */
+	public int getDocumentCount() {
+		return tree.getSequenceCount();
+	}
+
+	/**
+	 * @return The tokenizer used by this index.
+	 */
+	public Tokenizer getTokenizer() {
+		return tokenizer;
+	}
+
+	/**
+	 * @return The tree of token ids.
+	 */
+	IntSuffixTree getTree() {
+		return tree;
+	}
+}
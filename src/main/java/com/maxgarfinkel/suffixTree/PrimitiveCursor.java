@@ -0,0 +1,69 @@
+package com.maxgarfinkel.suffixTree;
+
+/**
+ * Walks down a {@link PrimitiveSuffixTree} one symbol at a time, in the same
+ * way as {@link Cursor} does for a {@link SuffixTree}.
+ *
+ * @author Max Garfinkel
+ */
+class PrimitiveCursor {
+
+	private final PrimitiveSuffixTree tree;
+	private final NodeStore nodes;
+	private int node;
+	private int edge;
+	private int length;
+
+	PrimitiveCursor(PrimitiveSuffixTree tree) {
+		this.tree = tree;
+		this.nodes = tree.getNodes();
+		returnToRoot();
+	}
+
+	/**
+	 * Moves the cursor on by the given symbol if the tree contains it at the
+	 * current position.
+	 *
+	 * @param symbol
+	 *            The next symbol of the pattern being walked.
+	 * @return True if the cursor moved. False if the symbol does not follow
+	 *         the current position, in which case the cursor is unchanged.
+	 */
+	boolean proceedTo(int symbol) {
+		if (symbol < 0)
+			return false;
+		if (edge != NodeStore.NONE) {
+			int start = nodes.getStart(edge);
+			if (length < nodes.getEnd(edge) - start) {
+				if (tree.symbolAt(start + length) != symbol)
+					return false;
+				length++;
+				return true;
+			}
+		}
+		int from = edge == NodeStore.NONE ? node : edge;
+		int next = nodes.getChild(from, symbol);
+		if (next == NodeStore.NONE)
+			return false;
+		node = from;
+		edge = next;
+		length = 1;
+		return true;
+	}
+
+	/**
+	 * Retrieves the ids of the sequences containing the symbols walked so
+	 * far.
+	 *
+	 * @return The sequence ids in ascending order.
+	 */
+	int[] getSequenceIds() {
+		return tree.sequencesBelow(edge == NodeStore.NONE ? node : edge);
+	}
+
+	void returnToRoot() {
+		node = tree.getRoot();
+		edge = NodeStore.NONE;
+		length = 0;
+	}
+}
@@ -0,0 +1,321 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The Ukkonen construction shared by the suffix trees over primitive
+ * alphabets, {@link CharSuffixTree}, {@link ByteSuffixTree} and
+ * {@link IntSuffixTree}.
+ *
+ * Every item is handled as an <code>int</code> symbol. Ordinary items are
+ * zero or greater, and the terminal closing sequence <code>k</code> is the
+ * reserved negative symbol <code>~k</code>, so terminals are unique and no
+ * {@link SequenceTerminal} objects are needed. Subclasses store the text in a
+ * primitive array and translate positions into symbols.
+ *
+ * Leaf edges are closed at the end of their own sequence as soon as they are
+ * created, since the length of the sequence being added is already known.
+ * Nodes are <code>int</code> indices into a {@link NodeStore} rather than
+ * objects.
+ *
+ * The nodes, the text and the sequence boundaries are all held in pages from
+ * a {@link TreeStorage}, on the heap unless another storage is given. After
+ * each sequence is added the counts needed to reopen the tree are written to
+ * the storage as well, so a tree in mapped storage can be reopened by
+ * constructing it again over the same files.
+ *
+ * @author Max Garfinkel
+ */
+public abstract class PrimitiveSuffixTree {
+
+	private static final int KIND = 0;
+	private static final int SEQUENCE_COUNT = 1;
+	private static final int NODE_COUNT = 2;
+	private static final int TABLE_COUNT = 3;
+
+	private final TreeStorage storage;
+	private final Pages header;
+	private final Pages sequenceEnds;
+	private final NodeStore nodes;
+	private final int root = 0;
+
+	private int activeNode = root;
+	private int activeEdge = 0;
+	private int activeLength = 0;
+	private int remainder = 0;
+
+	private int sequenceCount;
+
+	/**
+	 * Opens the tree held in the given storage, or starts a new one if the
+	 * storage is empty.
+	 *
+	 * @param storage
+	 *            The storage for the tree.
+	 * @param kind
+	 *            A positive number identifying the subclass, so that a tree
+	 *            cannot be reopened as the wrong kind.
+	 */
+	PrimitiveSuffixTree(TreeStorage storage, int kind) {
+		this.storage = storage;
+		header = new Pages(storage, "header", 4);
+		header.ensureCapacity(TABLE_COUNT + 1);
+		sequenceEnds = new Pages(storage, "sequenceEnds", 4);
+		if (header.getInt(KIND) == 0) {
+			header.setInt(KIND, kind);
+			nodes = new NodeStore(storage, 0, 0);
+			nodes.newNode(0, 0, 0, -1);
+		} else if (header.getInt(KIND) != kind) {
+			throw new IllegalArgumentException(
+					"The storage holds a different kind of suffix tree.");
+		} else {
+			sequenceCount = header.getInt(SEQUENCE_COUNT);
+			sequenceEnds.ensureCapacity(sequenceCount);
+			nodes = new NodeStore(storage, header.getInt(NODE_COUNT),
+					header.getInt(TABLE_COUNT));
+		}
+	}
+
+	/**
+	 * Retrieves the symbol at the given position of the text.
+	 *
+	 * @param position
+	 *            The position in the text.
+	 * @return The symbol at the position, negative for a sequence terminal.
+	 */
+	abstract int symbolAt(int position);
+
+	/**
+	 * Encodes the terminal for the given sequence.
+	 *
+	 * @param sequenceId
+	 *            The id of the sequence.
+	 * @return The terminal symbol.
+	 */
+	static int terminal(int sequenceId) {
+		return ~sequenceId;
+	}
+
+	/**
+	 * Lists the sections holding the text, so that the tree can be saved.
+	 *
+	 * @param sections
+	 *            The list to add the sections to.
+	 */
+	abstract void addTextSections(List<TreeFile.Section> sections);
+
+	/**
+	 * Saves the tree to a single file, which can be opened again with
+	 * {@link TreeStorage#open(File)} without rebuilding the tree. The file is
+	 * written in the native byte order, and can only be opened on machines
+	 * sharing it.
+	 *
+	 * @param file
+	 *            The file to write, replacing any existing content.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public void save(File file) throws IOException {
+		List<TreeFile.Section> sections = new ArrayList<TreeFile.Section>();
+		sections.add(new TreeFile.Section(header, TABLE_COUNT + 1));
+		sections.add(new TreeFile.Section(sequenceEnds, sequenceCount));
+		nodes.addSections(sections);
+		addTextSections(sections);
+		TreeFile.write(file, sections);
+	}
+
+	/**
+	 * Checks that sequences may be added to this tree.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if the tree was opened from a saved file.
+	 */
+	final void checkWritable() {
+		if (storage.isReadOnly())
+			throw new UnsupportedOperationException(
+					"A tree opened from a saved file cannot be changed.");
+	}
+
+	/**
+	 * Records that a sequence has been appended to the text, ending with its
+	 * terminal at the given position, and adds its suffixes to the tree.
+	 *
+	 * @param from
+	 *            The position of the first item of the sequence.
+	 * @param terminalPosition
+	 *            The position of the sequence's terminal.
+	 * @return The id of the new sequence.
+	 */
+	final int sequenceAdded(int from, int terminalPosition) {
+		int sequenceId = sequenceCount;
+		sequenceEnds.ensureCapacity(sequenceCount + 1);
+		sequenceEnds.setInt(sequenceCount++, terminalPosition);
+		activeNode = root;
+		activeLength = 0;
+		remainder = 0;
+		int leafEnd = terminalPosition + 1;
+		for (int i = from; i < leafEnd; i++)
+			extend(i, leafEnd);
+		header.setInt(SEQUENCE_COUNT, sequenceCount);
+		header.setInt(NODE_COUNT, nodes.size());
+		header.setInt(TABLE_COUNT, nodes.getTableCount());
+		return sequenceId;
+	}
+
+	/**
+	 * Runs one step of Ukkonen's algorithm, adding every suffix which ends
+	 * with the item at the given position.
+	 *
+	 * @param position
+	 *            The position of the item being added.
+	 * @param leafEnd
+	 *            The position after the terminal of the current sequence.
+	 */
+	private void extend(int position, int leafEnd) {
+		int symbol = symbolAt(position);
+		int lastCreated = NodeStore.NONE;
+		remainder++;
+		while (remainder > 0) {
+			if (activeLength == 0)
+				activeEdge = position;
+			int edgeSymbol = activeLength == 0 ? symbol : symbolAt(activeEdge);
+			int next = nodes.getChild(activeNode, edgeSymbol);
+			if (next == NodeStore.NONE) {
+				nodes.addChild(activeNode, nodes.newNode(position, leafEnd,
+						symbol, position - remainder + 1));
+				if (lastCreated != NodeStore.NONE) {
+					nodes.setLink(lastCreated, activeNode);
+					lastCreated = NodeStore.NONE;
+				}
+			} else {
+				int nextStart = nodes.getStart(next);
+				int edgeLength = nodes.getEnd(next) - nextStart;
+				if (activeLength >= edgeLength) {
+					activeEdge += edgeLength;
+					activeLength -= edgeLength;
+					activeNode = next;
+					continue;
+				}
+				int splitSymbol = symbolAt(nextStart + activeLength);
+				if (splitSymbol == symbol) {
+					if (lastCreated != NodeStore.NONE && activeNode != root)
+						nodes.setLink(lastCreated, activeNode);
+					activeLength++;
+					break;
+				}
+				int split = nodes.newNode(nextStart, nextStart + activeLength,
+						edgeSymbol, -1);
+				nodes.replaceChild(activeNode, next, split);
+				nodes.setStart(next, nextStart + activeLength, splitSymbol);
+				nodes.addChild(split, next);
+				nodes.addChild(split, nodes.newNode(position, leafEnd, symbol,
+						position - remainder + 1));
+				if (lastCreated != NodeStore.NONE)
+					nodes.setLink(lastCreated, split);
+				lastCreated = split;
+			}
+			remainder--;
+			if (activeNode == root && activeLength > 0) {
+				activeLength--;
+				activeEdge = position - remainder + 1;
+			} else if (activeNode != root) {
+				int link = nodes.getLink(activeNode);
+				activeNode = link != NodeStore.NONE ? link : root;
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the id of the sequence containing the given position, that is
+	 * the sequence whose terminal is at, or follows, the position.
+	 *
+	 * @param position
+	 *            A position in the text.
+	 * @return The id of the sequence containing the position.
+	 */
+	final int sequenceAt(int position) {
+		int low = 0;
+		int high = sequenceCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sequenceEnds.getInt(middle) < position)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * @return The length of the text of every sequence added so far,
+	 *         including their terminals.
+	 */
+	final int getTextLength() {
+		return sequenceCount == 0 ? 0 : sequenceEnds.getInt(sequenceCount - 1) + 1;
+	}
+
+	/**
+	 * Retrieves the ids of the sequences which have a leaf below the given
+	 * node, that is the sequences containing the string the node represents.
+	 *
+	 * @param node
+	 *            The node at the top of the subtree.
+	 * @return The distinct sequence ids in ascending order.
+	 */
+	final int[] sequencesBelow(int node) {
+		BitSet ids = new BitSet(sequenceCount);
+		int[] stack = new int[16];
+		int size = 0;
+		stack[size++] = node;
+		while (size > 0) {
+			int current = stack[--size];
+			if (nodes.isLeaf(current)) {
+				ids.set(sequenceAt(nodes.getSuffixStart(current)));
+				continue;
+			}
+			for (int child = nodes.getFirstChild(current); child != NodeStore.NONE; child = nodes
+					.getNextSibling(child)) {
+				if (size == stack.length)
+					stack = Arrays.copyOf(stack, size * 2);
+				stack[size++] = child;
+			}
+		}
+		int[] result = new int[ids.cardinality()];
+		int i = 0;
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1))
+			result[i++] = id;
+		return result;
+	}
+
+	/**
+	 * @return The number of sequences added to this tree.
+	 */
+	public int getSequenceCount() {
+		return sequenceCount;
+	}
+
+	/**
+	 * Retrieves the root node for this tree.
+	 *
+	 * @return The root node of the tree.
+	 */
+	int getRoot() {
+		return root;
+	}
+
+	NodeStore getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return The storage holding this tree.
+	 */
+	public TreeStorage getStorage() {
+		return storage;
+	}
+}
@@ -0,0 +1,86 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A run of items which occurs more than once in a {@link SuffixTree}, as
+ * found by {@link SuffixTree#longestRepeatedSubstring()},
+ * {@link SuffixTree#longestCommonSubstring(int)} and
+ * {@link SuffixTree#allMaximalRepeats(int)}.
+ * 
+ * @author Max Garfinkel
+ * 
+ * @param <I>
+ *            The type of the item within the sequence.
+ */
+public final class Repeat<I> {
+
+	private final List<I> items;
+	private final Occurrence first;
+	private final int occurrenceCount;
+	private final int sequenceCount;
+
+	Repeat(List<I> items, Occurrence first, int occurrenceCount,
+			int sequenceCount) {
+		this.items = Collections.unmodifiableList(items);
+		this.first = first;
+		this.occurrenceCount = occurrenceCount;
+		this.sequenceCount = sequenceCount;
+	}
+
+	/**
+	 * @return The items repeated.
+	 */
+	public List<I> getItems() {
+		return items;
+	}
+
+	/**
+	 * @return The number of items repeated.
+	 */
+	public int getLength() {
+		return items.size();
+	}
+
+	/**
+	 * @return The occurrence in the earliest position of the tree.
+	 */
+	public Occurrence getFirstOccurrence() {
+		return first;
+	}
+
+	/**
+	 * @return The number of places at which the items occur.
+	 */
+	public int getOccurrenceCount() {
+		return occurrenceCount;
+	}
+
+	/**
+	 * @return The number of distinct sequences containing the items.
+	 */
+	public int getSequenceCount() {
+		return sequenceCount;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == null || o.getClass() != this.getClass())
+			return false;
+		Repeat<?> other = (Repeat<?>) o;
+		return other.items.equals(items) && other.first.equals(first)
+				&& other.occurrenceCount == occurrenceCount
+				&& other.sequenceCount == sequenceCount;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * items.hashCode() + first.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return items + " at " + first + " x" + occurrenceCount;
+	}
+}
@@ -1,9 +1,9 @@
 package com.maxgarfinkel.suffixTree;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 
@@ -13,13 +13,39 @@ import org.apache.log4j.Logger;
  * terminating item to the end of the instance which is included in all
  * operations.
  * 
+ * Items are held as <code>int</code> codes from a {@link SymbolTable} shared
+ * by every sequence in the tree, in pages of {@link #PAGE_SIZE} codes, so
+ * growing the sequence never copies the items already held. Terminals are
+ * kept apart from the items and have negative codes: the terminal of sequence
+ * <code>k</code> is <code>~k</code>, unless an equal terminal was added
+ * before it, in which case it shares that terminal's code. The tree compares
+ * codes, so reading an item while building or searching the tree is an array
+ * read, and the items themselves are only needed to encode patterns and to
+ * report what the tree holds.
+ * 
+ * Positions and sequence ids are never reused. When the oldest sequence is
+ * removed, the pages holding only its items are released, and so are the
+ * codes of items no longer held anywhere in the sequence.
+ * 
  * @author Max Garfinkel
  * 
  * @param <I,S>
  */
 public class Sequence<I, S extends Iterable<I>> implements Iterable<Object> {
 
-	private List<Object> masterSequence = new ArrayList<Object>();
+	static final int PAGE_BITS = 12;
+	static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	private final SymbolTable symbols = new SymbolTable();
+	private final Map<Object, Integer> terminalCodes = new HashMap<Object, Integer>();
+	private final Map<Integer, Terminal> terminals = new HashMap<Integer, Terminal>();
+	private int[][] pages = new int[16][];
+	private int firstPage = 0;
+	private int length = 0;
+	private int[] terminalPositions = new int[16];
+	private int sequenceCount = 0;
+	private int firstSequence = 0;
+	private int firstPosition = 0;
 	Logger logger = Logger.getLogger(Sequence.class);
 
 	Sequence(){
@@ -31,10 +57,7 @@ public class Sequence<I, S extends Iterable<I>> implements Iterable<Object> {
 	 * @param sequence
 	 */
 	Sequence(S sequence) {
-		for(Object item : sequence)
-			masterSequence.add(item);
-		SequenceTerminal<S> sequenceTerminal = new SequenceTerminal<S>(sequence);
-		masterSequence.add(sequenceTerminal);
+		add(sequence);
 	}
 
 	/**
@@ -42,9 +65,52 @@ public class Sequence<I, S extends Iterable<I>> implements Iterable<Object> {
 	 * 
 	 * @param index
 	 * @return
+	 * @throws IndexOutOfBoundsException
+	 *             if the position is beyond the end of the sequence or its
+	 *             item has been removed.
 	 */
 	Object getItem(int index) {
-		return masterSequence.get(index);
+		if (index < firstPosition || index >= length)
+			throw new IndexOutOfBoundsException("No item at position " + index);
+		return decode(codeAt(index));
+	}
+
+	/**
+	 * Retrieves the code of the item at the given position. The position is
+	 * not checked.
+	 * 
+	 * @param position
+	 *            A position holding an item.
+	 * @return The code of the item, negative for a terminal.
+	 */
+	int codeAt(int position) {
+		return pages[(position >>> PAGE_BITS) - firstPage][position & (PAGE_SIZE - 1)];
+	}
+
+	/**
+	 * Retrieves the code of an item or terminal without assigning one, for
+	 * comparing a pattern with the items held.
+	 * 
+	 * @param item
+	 *            The item or terminal.
+	 * @return Its code, or {@link SymbolTable#NONE} if no item in the
+	 *         sequence is equal to it.
+	 */
+	int lookup(Object item) {
+		if (item instanceof SequenceTerminal) {
+			Integer code = terminalCodes.get(item);
+			return code == null ? SymbolTable.NONE : code;
+		}
+		return symbols.lookup(item);
+	}
+
+	/**
+	 * @param code
+	 *            The code of an item or terminal held in the sequence.
+	 * @return The item or terminal.
+	 */
+	Object decode(int code) {
+		return code >= 0 ? symbols.decode(code) : terminals.get(code).terminal;
 	}
 
 	/**
@@ -53,10 +119,183 @@ public class Sequence<I, S extends Iterable<I>> implements Iterable<Object> {
 	 */
 	void add(S sequence){
 		for(I item : sequence){
-			masterSequence.add(item);
+			append(item);
+		}
+		addTerminal(new SequenceTerminal<S>(sequence));
+	}
+
+	/**
+	 * Appends a single item to the sequence currently being streamed in.
+	 * 
+	 * @param item
+	 *            The item to append.
+	 */
+	void append(I item){
+		appendCode(symbols.encode(item));
+	}
+
+	/**
+	 * Closes the sequence currently being streamed in by appending a terminal
+	 * which is equal only to itself.
+	 */
+	void close(){
+		addTerminal(new SequenceTerminal<S>(null));
+	}
+
+	private void addTerminal(SequenceTerminal<S> terminal) {
+		Integer code = terminalCodes.get(terminal);
+		if (code == null) {
+			code = ~sequenceCount;
+			terminalCodes.put(terminal, code);
+			terminals.put(code, new Terminal(terminal));
+		}
+		terminals.get(code).uses++;
+		appendCode(code);
+		int live = sequenceCount - firstSequence;
+		if (live == terminalPositions.length)
+			terminalPositions = Arrays.copyOf(terminalPositions, live * 2);
+		terminalPositions[live] = length - 1;
+		sequenceCount++;
+	}
+
+	private void appendCode(int code) {
+		int page = (length >>> PAGE_BITS) - firstPage;
+		if (page == pages.length)
+			pages = Arrays.copyOf(pages, pages.length * 2);
+		if (pages[page] == null)
+			pages[page] = new int[PAGE_SIZE];
+		pages[page][length & (PAGE_SIZE - 1)] = code;
+		length++;
+	}
+
+	/**
+	 * Removes the oldest sequence, releasing the codes of its items and the
+	 * pages which held only its items and earlier ones. The positions of the
+	 * remaining items are unchanged.
+	 */
+	void removeFirst() {
+		int terminalPosition = terminalPositions[0];
+		for (int position = firstPosition; position < terminalPosition; position++)
+			symbols.release(codeAt(position));
+		int code = codeAt(terminalPosition);
+		Terminal terminal = terminals.get(code);
+		if (--terminal.uses == 0) {
+			terminals.remove(code);
+			terminalCodes.remove(terminal.terminal);
+		}
+		firstPosition = terminalPosition + 1;
+		firstSequence++;
+		System.arraycopy(terminalPositions, 1, terminalPositions, 0,
+				sequenceCount - firstSequence);
+		int released = (firstPosition >>> PAGE_BITS) - firstPage;
+		if (released > 0) {
+			System.arraycopy(pages, released, pages, 0, pages.length - released);
+			Arrays.fill(pages, pages.length - released, pages.length, null);
+			firstPage += released;
 		}
-		SequenceTerminal<S> terminal = new SequenceTerminal<S>(sequence);
-		masterSequence.add(terminal);
+	}
+
+	/**
+	 * Retrieves the id of the sequence containing the given position of the
+	 * master sequence, that is the sequence whose terminal is at, or follows,
+	 * the position.
+	 * 
+	 * @param position
+	 *            A position in the master sequence.
+	 * @return The id of the sequence, which is the number of sequences added
+	 *         before it. Positions after the last terminal belong to the
+	 *         sequence being streamed in, if any, whose id is the number of
+	 *         closed sequences.
+	 */
+	int getSequenceId(int position) {
+		int index = Arrays.binarySearch(terminalPositions, 0, sequenceCount
+				- firstSequence, position);
+		return firstSequence + (index >= 0 ? index : -(index + 1));
+	}
+
+	/**
+	 * Retrieves the position in the master sequence of the first item of the
+	 * given sequence.
+	 * 
+	 * @param sequenceId
+	 *            The id of the sequence.
+	 * @return The position of its first item.
+	 */
+	int getSequenceStart(int sequenceId) {
+		return sequenceId == firstSequence ? firstPosition
+				: terminalPositions[sequenceId - firstSequence - 1] + 1;
+	}
+
+	/**
+	 * Retrieves the position in the master sequence of the terminal of the
+	 * given sequence.
+	 * 
+	 * @param sequenceId
+	 *            The id of the sequence.
+	 * @return The position of its terminal.
+	 */
+	int getTerminalPosition(int sequenceId) {
+		return terminalPositions[sequenceId - firstSequence];
+	}
+
+	/**
+	 * @return The number of sequences added, including any since removed,
+	 *         which is one more than the id of the newest sequence.
+	 */
+	int getSequenceCount() {
+		return sequenceCount;
+	}
+
+	/**
+	 * @return The id of the oldest sequence which has not been removed.
+	 */
+	int getFirstSequenceId() {
+		return firstSequence;
+	}
+
+	/**
+	 * @return The estimated bytes used by the pages of codes, the record of
+	 *         where each sequence ends and the terminals, not counting the
+	 *         symbol table.
+	 */
+	long storageBytes() {
+		long bytes = MemoryReport.array(pages.length, MemoryReport.REFERENCE)
+				+ MemoryReport.array(terminalPositions.length, 4);
+		for (int[] page : pages) {
+			if (page != null)
+				bytes += MemoryReport.array(page.length, 4);
+		}
+		long terminal = MemoryReport.align(MemoryReport.HEADER
+				+ MemoryReport.REFERENCE + 4);
+		long sequenceTerminal = MemoryReport.align(MemoryReport.HEADER
+				+ MemoryReport.REFERENCE);
+		bytes += MemoryReport.hashMap(terminalCodes.size())
+				+ MemoryReport.hashMap(terminals.size());
+		bytes += terminals.size()
+				* (terminal + sequenceTerminal + 2 * MemoryReport.INTEGER);
+		return bytes;
+	}
+
+	/**
+	 * @return The estimated bytes used by the symbol table, not counting the
+	 *         items.
+	 */
+	long symbolBytes() {
+		return symbols.bytes();
+	}
+
+	/**
+	 * @return The number of distinct items held, not counting terminals.
+	 */
+	int getSymbolCount() {
+		return symbols.count();
+	}
+
+	/**
+	 * @return The position of the first item which has not been removed.
+	 */
+	int getFirstPosition() {
+		return firstPosition;
 	}
 	
 	/**
@@ -65,15 +304,15 @@ public class Sequence<I, S extends Iterable<I>> implements Iterable<Object> {
 	public Iterator<Object> iterator() {
 		return new Iterator<Object>() {
 
-			int currentPosition = 0;
+			int currentPosition = firstPosition;
 
 			public boolean hasNext() {
-				return masterSequence.size() > currentPosition;
+				return length > currentPosition;
 			}
 
 			public Object next() {
-				if (currentPosition <= masterSequence.size())
-					return masterSequence.get(currentPosition++);
+				if (currentPosition < length)
+					return getItem(currentPosition++);
 				else {
 					return null;
 				}
@@ -88,17 +327,31 @@ public class Sequence<I, S extends Iterable<I>> implements Iterable<Object> {
 		};
 	}
 	
+	/**
+	 * @return The position after the last item, which counts removed items.
+	 */
 	int getLength(){
-		return masterSequence.size();
+		return length;
 	}
 	
 	public String toString(){
 		StringBuilder sb = new StringBuilder("Sequence = [");
-		for(Object i : masterSequence){
+		for(Object i : this){
 			sb.append(i).append(", ");
 		}
 		sb.append("]");
 		return sb.toString();
 	}
-	
+
+	/**
+	 * A terminal and the number of sequences ending with it.
+	 */
+	private static final class Terminal {
+		final Object terminal;
+		int uses = 0;
+
+		Terminal(Object terminal) {
+			this.terminal = terminal;
+		}
+	}
 }
@@ -3,6 +3,10 @@ package com.maxgarfinkel.suffixTree;
 /**
  * Represents the terminating item of a sequence.
  * 
+ * A terminal normally compares equal to the terminal of an equal sequence. The
+ * terminal of a sequence streamed into the tree has no sequence object, so it
+ * is only equal to itself.
+ * 
  * @author maxgarfinkel
  * 
  */
@@ -17,20 +21,26 @@ class SequenceTerminal<S> {
 	@SuppressWarnings("unchecked")
 	@Override
 	public boolean equals(Object o) {
-		if(o == null || o.getClass() != this.getClass())
+		if(o == this)
+			return true;
+		if(o == null || o.getClass() != this.getClass() || sequence == null)
 			return false;
-		return ((SequenceTerminal<S>)o).sequence.equals(this.sequence);
+		return sequence.equals(((SequenceTerminal<S>)o).sequence);
 	}
 	
 	public int hashCode(){
-		return sequence.hashCode();	
+		return sequence == null ? System.identityHashCode(this) : sequence.hashCode();	
 	}
 
 	@Override
 	public String toString() {
-		return "$"+sequence.toString()+"$";
+		return "$"+(sequence == null ? "" : sequence.toString())+"$";
 	}
 	
+	/**
+	 * @return The sequence this terminal closes, or null if the sequence was
+	 *         streamed into the tree.
+	 */
 	public S getSequence(){
 		return sequence;
 	}
@@ -0,0 +1,57 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.List;
+
+/**
+ * The substring queries answered by every index over a set of sequences.
+ * 
+ * @author Max Garfinkel
+ * 
+ * @param <I>
+ *            The type of the item within the sequence.
+ * @param <S>
+ *            The sequence type, which must iterate over items of type
+ *            <code>I</code>
+ */
+public interface SubstringIndex<I, S extends Iterable<I>> {
+
+	/**
+	 * Tests whether any sequence in the index contains the given pattern.
+	 * 
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return True if the pattern occurs. The empty pattern occurs in every
+	 *         index.
+	 */
+	boolean contains(S pattern);
+
+	/**
+	 * Counts the places at which the given pattern occurs across every
+	 * sequence in the index.
+	 * 
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The number of occurrences, zero for the empty pattern.
+	 */
+	int countOccurrences(S pattern);
+
+	/**
+	 * Counts the distinct sequences containing the given pattern.
+	 * 
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The number of sequences containing the pattern, zero for the
+	 *         empty pattern.
+	 */
+	int countSequencesContaining(S pattern);
+
+	/**
+	 * Finds every place at which the given pattern occurs.
+	 * 
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The occurrences ordered by sequence id and then offset, empty
+	 *         for the empty pattern.
+	 */
+	List<Occurrence> locate(S pattern);
+}
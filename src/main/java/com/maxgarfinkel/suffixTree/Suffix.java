@@ -71,6 +71,18 @@ class Suffix<T,S extends Iterable<T>> {
 		return sequence.getItem(end-1);
 	}
 
+	/**
+	 * Get the code of the end item of this suffix.
+	 * 
+	 * @return The code of the end item, or {@link SymbolTable#NONE} if the
+	 *         suffix is empty.
+	 */
+	int getEndCode() {
+		if(isEmpty())
+			return SymbolTable.NONE;
+		return sequence.codeAt(end-1);
+	}
+
 	/**
 	 * Get the start of this suffix.
 	 * 
@@ -82,6 +94,18 @@ class Suffix<T,S extends Iterable<T>> {
 		return sequence.getItem(start);
 	}
 
+	/**
+	 * Get the code of the start item of this suffix.
+	 * 
+	 * @return The code of the start item, or {@link SymbolTable#NONE} if the
+	 *         suffix is empty.
+	 */
+	int getStartCode() {
+		if(isEmpty())
+			return SymbolTable.NONE;
+		return sequence.codeAt(start);
+	}
+
 	/**
 	 * Decrement the length of this suffix. This is done by incrementing the
 	 * start position. This is reducing its length from the back.
@@ -141,6 +165,25 @@ class Suffix<T,S extends Iterable<T>> {
 		}
 		return sequence.getItem(end - distanceFromEnd);
 	}
+
+	/**
+	 * Retrieves the code of the item the given distance from the end of the
+	 * suffix.
+	 * 
+	 * @param distanceFromEnd
+	 *            The distance from the end.
+	 * @return The code of the item the given distance from the end.
+	 * @throws IllegalArgumentException
+	 *             if the distance from end is greater than the length of the
+	 *             suffix.
+	 */
+	int getCodeXFromEnd(int distanceFromEnd) {
+		if ((end - (distanceFromEnd)) < start){
+			throw new IllegalArgumentException(distanceFromEnd
+					+ " extends before the start of this suffix: ");
+		}
+		return sequence.codeAt(end - distanceFromEnd);
+	}
 	
 	void reset(int start, int end){
 		testStartAndEndValues(start, end);
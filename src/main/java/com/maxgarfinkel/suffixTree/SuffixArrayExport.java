@@ -0,0 +1,143 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the suffix array and LCP array of a {@link SuffixTree}, as used by
+ * {@link SuffixTree#writeSuffixArray(Comparator, IntBuffer, IntBuffer)}.
+ *
+ * The leaves are visited depth first with the children of every node sorted
+ * by their first item, which gives the suffixes in order. The LCP of a
+ * suffix and the one before it is the depth of the node at which the walk
+ * turned from one to the other. A terminal sorts before every item, and
+ * terminals sort by the id of the oldest sequence ending with them, as a
+ * terminal keeps its code when the sequence which gave it that code is
+ * removed. A sequence equal to one added before it shares that sequence's
+ * leaves, so its suffixes are written straight after the equal suffixes of
+ * the earlier sequence.
+ *
+ * @author Max Garfinkel
+ */
+final class SuffixArrayExport<I, S extends Iterable<I>> {
+
+	private final SuffixTree<I, S> tree;
+	private final Sequence<I, S> sequence;
+	private final Comparator<Edge<I, S>> childOrder;
+	private final Comparator<Edge<I, S>> stackOrder;
+	private final int offset;
+	private final int[] nextEqual;
+	private final Map<Integer, Integer> firstWith = new HashMap<Integer, Integer>();
+	private Edge<I, S>[] stack = Edge.newArray(16);
+	private int[] depths = new int[16];
+	private boolean[] firsts = new boolean[16];
+	private int top = 0;
+
+	private SuffixArrayExport(SuffixTree<I, S> tree, final Comparator<? super I> order) {
+		this.tree = tree;
+		this.sequence = tree.getSequence();
+		this.offset = sequence.getFirstPosition();
+		childOrder = new Comparator<Edge<I, S>>() {
+			@SuppressWarnings("unchecked")
+			public int compare(Edge<I, S> a, Edge<I, S> b) {
+				int first = a.getStartCode();
+				int second = b.getStartCode();
+				if (first < 0 || second < 0) {
+					if (first >= 0 || second >= 0)
+						return first < 0 ? -1 : 1;
+					return firstWith.get(first).compareTo(firstWith.get(second));
+				}
+				I x = (I) sequence.decode(first);
+				I y = (I) sequence.decode(second);
+				if (order == null)
+					return ((Comparable<? super I>) x).compareTo(y);
+				return order.compare(x, y);
+			}
+		};
+		stackOrder = Collections.reverseOrder(childOrder);
+		int firstId = sequence.getFirstSequenceId();
+		nextEqual = new int[sequence.getSequenceCount() - firstId];
+		for (int id = sequence.getSequenceCount() - 1; id >= firstId; id--) {
+			int terminal = sequence.codeAt(sequence.getTerminalPosition(id));
+			Integer later = firstWith.put(terminal, id);
+			nextEqual[id - firstId] = later == null ? -1 : later;
+		}
+	}
+
+	/**
+	 * Writes the suffix array and LCP array of a tree.
+	 *
+	 * @param tree
+	 *            The tree, which must have no open sequence.
+	 * @param order
+	 *            The order of the items, or null for their natural order.
+	 * @param suffixes
+	 *            Receives the start of every suffix in order, relative to
+	 *            the first item of the oldest sequence.
+	 * @param lcp
+	 *            Receives, for every suffix in order, the number of items it
+	 *            shares with the suffix before it, or null if not wanted.
+	 */
+	static <I, S extends Iterable<I>> void write(SuffixTree<I, S> tree,
+			Comparator<? super I> order, IntBuffer suffixes, IntBuffer lcp) {
+		new SuffixArrayExport<I, S>(tree, order).write(suffixes, lcp);
+	}
+
+	private void write(IntBuffer suffixes, IntBuffer lcp) {
+		pushChildren(tree.getRoot(), 0);
+		int shared = 0;
+		while (top > 0) {
+			Edge<I, S> edge = stack[--top];
+			int depth = depths[top];
+			if (!firsts[top])
+				shared = depth;
+			Node<I, S> child = edge.getTerminal();
+			if (child != null) {
+				pushChildren(child, depth + edge.getLength());
+				continue;
+			}
+			int start = edge.getStart() - depth;
+			int id = sequence.getSequenceId(start);
+			put(suffixes, lcp, start, shared);
+			int remaining = sequence.getTerminalPosition(id) - start;
+			int from = start - sequence.getSequenceStart(id);
+			for (int equal = nextEqual(id); equal >= 0; equal = nextEqual(equal))
+				put(suffixes, lcp, sequence.getSequenceStart(equal) + from, remaining);
+		}
+	}
+
+	/**
+	 * Pushes the edges below a node so that the first in order is on top,
+	 * marking it as the first child.
+	 */
+	private void pushChildren(Node<I, S> node, int depth) {
+		int count = node.getEdgeCount();
+		if (top + count > stack.length) {
+			int length = Math.max(stack.length * 2, top + count);
+			stack = Arrays.copyOf(stack, length);
+			depths = Arrays.copyOf(depths, length);
+			firsts = Arrays.copyOf(firsts, length);
+		}
+		int pushed = node.pushEdges(stack, top);
+		Arrays.sort(stack, top, pushed, stackOrder);
+		Arrays.fill(depths, top, pushed, depth);
+		Arrays.fill(firsts, top, pushed, false);
+		if (pushed > top)
+			firsts[pushed - 1] = true;
+		top = pushed;
+	}
+
+	private void put(IntBuffer suffixes, IntBuffer lcp, int start, int shared) {
+		suffixes.put(start - offset);
+		if (lcp != null)
+			lcp.put(shared);
+	}
+
+	private int nextEqual(int id) {
+		return nextEqual[id - sequence.getFirstSequenceId()];
+	}
+}
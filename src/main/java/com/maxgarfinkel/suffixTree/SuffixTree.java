@@ -1,5 +1,21 @@
 package com.maxgarfinkel.suffixTree;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.RecursiveAction;
+
 import org.apache.log4j.Logger;
 
 /**
@@ -8,6 +24,10 @@ import org.apache.log4j.Logger;
  * The type of both <i>character</i> and the <i>word</i> can be specified, and we call these <i>items</i> 
  * and <i>sequences</i> respectively.
  * 
+ * A suffix tree is not safe for use by more than one thread at a time, since
+ * even queries may record annotations on its nodes. Use {@link #freeze()} to
+ * obtain a copy which can be queried concurrently.
+ * 
  * @author Max Garfinkel
  * 
  * @param <I>
@@ -15,7 +35,7 @@ import org.apache.log4j.Logger;
  * @param <S>
  * 			  The sequence type, which must iterate over items of type <code>I</code>
  */
-public class SuffixTree<I,S extends Iterable<I>> {
+public class SuffixTree<I,S extends Iterable<I>> implements SubstringIndex<I,S> {
 
 	private final Node<I,S> root;
 	private final Sequence<I,S> sequence;
@@ -25,6 +45,10 @@ public class SuffixTree<I,S extends Iterable<I>> {
 	private int currentEnd = 0;
 	private int insertsThisStep = 0;
 	private Node<I,S> lastNodeInserted = null;
+	private boolean annotated = false;
+	private boolean streaming = false;
+	private BuildListener listener = null;
+	private BuildCounters counters = null;
 	
 	private Logger logger = Logger.getLogger(SuffixTree.class);
 
@@ -58,39 +82,1091 @@ public class SuffixTree<I,S extends Iterable<I>> {
 	 * Add a sequence to the suffix tree. It is immediately processed
 	 * and added to the tree. 
 	 * @param sequence A sequence to be added.
+	 * @throws IllegalStateException if a streamed sequence is open.
 	 */
 	public void add(S sequence){
+		checkNotStreaming();
 		int start = currentEnd;
 		this.sequence.add(sequence);
 		suffix = new Suffix<I,S>(currentEnd,currentEnd,this.sequence);
 		activePoint.setPosition(root, null, 0);
 		extendTree(start, this.sequence.getLength());
+		annotated = false;
+		if (listener != null)
+			listener.sequenceAdded(this.sequence.getSequenceCount() - 1,
+					counters.snapshot());
+	}
+
+	/**
+	 * Opens a new sequence whose items will be supplied one at a time, or in
+	 * chunks, by {@link #append(Object)} and {@link #appendAll(Iterable)} as
+	 * they become available. Each item is added to the tree as soon as it is
+	 * appended, so the whole sequence never needs to be held by the caller.
+	 * 
+	 * Queries may be made while the sequence is open and see the items
+	 * appended so far. {@link #contains(Iterable)} is exact, but the counts
+	 * and {@link #locate(Iterable)} only see occurrences starting at suffixes
+	 * which Ukkonen's algorithm has already made explicit, and may miss ones
+	 * starting in the last few items appended. They are exact once the
+	 * sequence is closed.
+	 * 
+	 * The terminal of a streamed sequence is equal only to itself, so unlike
+	 * a sequence passed to {@link #add(Iterable)} it never shares its leaves
+	 * with an equal sequence.
+	 * 
+	 * @return The id the sequence will have.
+	 * @throws IllegalStateException
+	 *             if a sequence is already open.
+	 */
+	public int openSequence() {
+		checkNotStreaming();
+		streaming = true;
+		suffix = new Suffix<I,S>(currentEnd,currentEnd,this.sequence);
+		activePoint.setPosition(root, null, 0);
+		annotated = false;
+		return sequence.getSequenceCount();
+	}
+
+	/**
+	 * Appends an item to the open sequence and adds it to the tree.
+	 * 
+	 * @param item
+	 *            The next item of the sequence.
+	 * @throws IllegalStateException
+	 *             if no sequence is open.
+	 */
+	public void append(I item) {
+		checkStreaming();
+		sequence.append(item);
+		extendTree(currentEnd, sequence.getLength());
+		annotated = false;
+	}
+
+	/**
+	 * Appends a chunk of items to the open sequence and adds them to the
+	 * tree.
+	 * 
+	 * @param items
+	 *            The next items of the sequence, in order.
+	 * @throws IllegalStateException
+	 *             if no sequence is open.
+	 */
+	public void appendAll(Iterable<? extends I> items) {
+		checkStreaming();
+		for (I item : items)
+			sequence.append(item);
+		extendTree(currentEnd, sequence.getLength());
+		annotated = false;
+	}
+
+	/**
+	 * Closes the open sequence, adding its terminal to the tree.
+	 * 
+	 * @return The id of the sequence.
+	 * @throws IllegalStateException
+	 *             if no sequence is open.
+	 */
+	public int closeSequence() {
+		checkStreaming();
+		sequence.close();
+		extendTree(currentEnd, sequence.getLength());
+		streaming = false;
+		annotated = false;
+		int sequenceId = sequence.getSequenceCount() - 1;
+		if (listener != null)
+			listener.sequenceAdded(sequenceId, counters.snapshot());
+		return sequenceId;
+	}
+
+	/**
+	 * Sets a listener to receive statistics of the work done building the
+	 * tree from now on. Nothing is counted while no listener is set.
+	 * 
+	 * @param listener
+	 *            The listener, or null to stop counting.
+	 */
+	public void setBuildListener(BuildListener listener) {
+		this.listener = listener;
+		counters = listener == null ? null : new BuildCounters();
+		activePoint.setCounters(counters);
+	}
+
+	/**
+	 * @return The work done building the tree since a listener was set, or
+	 *         null if none is set.
+	 */
+	public BuildStatistics getBuildStatistics() {
+		return counters == null ? null : counters.snapshot();
+	}
+
+	/**
+	 * @return The counters to add to, or null if nothing is being counted.
+	 */
+	BuildCounters getBuildCounters() {
+		return counters;
+	}
+
+	/**
+	 * @return True if a sequence has been opened and not yet closed.
+	 */
+	public boolean isSequenceOpen() {
+		return streaming;
+	}
+
+	private void checkStreaming() {
+		if (!streaming)
+			throw new IllegalStateException("No sequence is open.");
+	}
+
+	private void checkNotStreaming() {
+		if (streaming)
+			throw new IllegalStateException(
+					"The open sequence must be closed first.");
+	}
+
+	/**
+	 * Removes the oldest sequence remaining in the tree, so that a tree can
+	 * index a sliding window of sequences without being rebuilt. The leaves
+	 * of its suffixes are removed, along with any node left with only one
+	 * child, edges pointing at its items are moved to another occurrence of
+	 * the same items, and its items are released. This takes time
+	 * proportional to the number of nodes on the paths to its leaves, however
+	 * large the rest of the tree is.
+	 * 
+	 * Ids are not reused, so the remaining sequences keep their ids. If an
+	 * equal sequence was added later, the leaves they share are handed to it.
+	 * 
+	 * @return The id of the removed sequence.
+	 * @throws NoSuchElementException
+	 *             if the tree holds no sequences.
+	 * @throws IllegalStateException
+	 *             if a streamed sequence is open.
+	 */
+	public int removeOldest() {
+		checkNotStreaming();
+		int id = sequence.getFirstSequenceId();
+		if (id == sequence.getSequenceCount())
+			throw new NoSuchElementException("The tree holds no sequences.");
+		int from = sequence.getSequenceStart(id);
+		int to = sequence.getTerminalPosition(id);
+		int shift = 0;
+		int terminal = sequence.codeAt(to);
+		for (int other = id + 1; other < sequence.getSequenceCount(); other++) {
+			if (sequence.codeAt(sequence.getTerminalPosition(other)) == terminal) {
+				shift = sequence.getSequenceStart(other) - from;
+				break;
+			}
+		}
+		for (int start = from; start <= to; start++) {
+			Node<I, S> node = root;
+			int depth = 0;
+			Edge<I, S> edge = root.getEdgeStartingCode(sequence.codeAt(start));
+			while (edge.getTerminal() != null) {
+				depth += edge.getLength();
+				node = edge.getTerminal();
+				edge = node.getEdgeStartingCode(sequence.codeAt(start + depth));
+			}
+			if (shift != 0) {
+				edge.moveTo(edge.getStart() + shift);
+				continue;
+			}
+			node.remove(edge);
+			if (node != root && node.getEdgeCount() == 1)
+				node.getIncomingEdge().absorb(node.iterator().next());
+		}
+		for (int start = from; start <= to; start++)
+			relocateEdges(start, from, to);
+		sequence.removeFirst();
+		annotated = false;
+		return id;
+	}
+
+	/**
+	 * Walks the path of a suffix of a sequence being removed, skipping and
+	 * counting rather than comparing items, and moves every edge on it which
+	 * was labelled by a suffix of that sequence. Each edge is labelled by the
+	 * suffix it was created for, which starts its depth before the edge's
+	 * start, and it lies on that suffix's path, so every such edge is found.
+	 * 
+	 * @param start
+	 *            The position at which the suffix starts.
+	 * @param from
+	 *            The position of the first item of the sequence.
+	 * @param to
+	 *            The position of the sequence's terminal.
+	 */
+	private void relocateEdges(int start, int from, int to) {
+		Node<I, S> node = root;
+		int depth = 0;
+		while (start + depth <= to) {
+			Edge<I, S> edge = node.getEdgeStartingCode(sequence.codeAt(start + depth));
+			if (edge == null)
+				return;
+			int origin = edge.getStart() - depth;
+			if (origin >= from && origin <= to)
+				edge.moveTo(leafBelow(edge, depth) + depth);
+			if (edge.getTerminal() == null)
+				return;
+			depth += edge.getLength();
+			node = edge.getTerminal();
+		}
 	}
 
+	/**
+	 * Finds the start of a suffix whose leaf is below the given edge.
+	 * 
+	 * @param edge
+	 *            The edge to search below.
+	 * @param depth
+	 *            The number of items above the start of the edge.
+	 * @return The position at which the suffix starts.
+	 */
+	private int leafBelow(Edge<I, S> edge, int depth) {
+		while (edge.getTerminal() != null) {
+			depth += edge.getLength();
+			edge = edge.getTerminal().iterator().next();
+		}
+		return edge.getStart() - depth;
+	}
+
+	/**
+	 * Appends a sequence to the master sequence without adding its suffixes
+	 * to the tree, for use when they are merged in from another tree.
+	 * 
+	 * @param sequence
+	 *            The sequence to append.
+	 */
+	void appendWithoutExtending(S sequence) {
+		this.sequence.add(sequence);
+		currentEnd = this.sequence.getLength();
+		annotated = false;
+	}
+
+	/**
+	 * Tests whether any sequence in the tree contains the given pattern.
+	 * 
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return True if the pattern occurs in the tree. The empty pattern
+	 *         occurs in every tree.
+	 */
+	public boolean contains(S pattern) {
+		return find(pattern) != null;
+	}
+
+	/**
+	 * Counts the places at which the given pattern occurs across every
+	 * sequence in the tree. After the first search following a change to the
+	 * tree this takes time proportional to the length of the pattern, however
+	 * many occurrences there are. As with {@link #locate(Iterable)}, a
+	 * sequence equal to an earlier one is not counted again.
+	 * 
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The number of occurrences, zero for the empty pattern.
+	 */
+	public int countOccurrences(S pattern) {
+		Match<I, S> match = find(pattern);
+		if (match == null || match.edge == null)
+			return 0;
+		annotate();
+		Node<I, S> terminal = match.edge.getTerminal();
+		return terminal == null ? 1 : terminal.getLeafCount();
+	}
+
+	/**
+	 * Counts the distinct sequences containing the given pattern. After the
+	 * first search following a change to the tree this takes time
+	 * proportional to the length of the pattern, however many sequences
+	 * there are.
+	 * 
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The number of sequences containing the pattern, zero for the
+	 *         empty pattern.
+	 */
+	public int countSequencesContaining(S pattern) {
+		Match<I, S> match = find(pattern);
+		if (match == null || match.edge == null)
+			return 0;
+		annotate();
+		Node<I, S> terminal = match.edge.getTerminal();
+		return terminal == null ? 1 : terminal.getSequenceCount();
+	}
+
+	/**
+	 * Finds every place at which the given pattern occurs. A sequence equal
+	 * to one added before it shares that sequence's terminal, so its own
+	 * occurrences are not reported separately.
+	 * 
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The occurrences ordered by sequence id and then offset, empty
+	 *         for the empty pattern.
+	 */
+	public List<Occurrence> locate(S pattern) {
+		List<Occurrence> occurrences = new ArrayList<Occurrence>();
+		Match<I, S> match = find(pattern);
+		if (match == null || match.edge == null)
+			return occurrences;
+		addLeaves(match.edge, match.depth, occurrences);
+		Collections.sort(occurrences);
+		return occurrences;
+	}
+
+	/**
+	 * Finds every place at which the given wildcard pattern matches. Each
+	 * place is reported once, however many runs of items starting there the
+	 * pattern matches. As with {@link #locate(Iterable)}, a sequence equal to
+	 * one added before it is not reported separately.
+	 * 
+	 * @param pattern
+	 *            The pattern to search for.
+	 * @return The occurrences ordered by sequence id and then offset.
+	 */
+	public List<Occurrence> locateMatching(WildcardPattern pattern) {
+		List<Occurrence> occurrences = pattern.locate(this);
+		Collections.sort(occurrences);
+		return occurrences;
+	}
+
+	/**
+	 * Adds the start of every suffix below a point in the tree.
+	 * 
+	 * @param below
+	 *            The edge on which the point lies.
+	 * @param belowDepth
+	 *            The number of items on the path above the edge.
+	 * @param occurrences
+	 *            Receives the suffixes, unordered.
+	 */
+	void addLeaves(Edge<I, S> below, int belowDepth, List<Occurrence> occurrences) {
+		Edge<I, S>[] edges = Edge.newArray(16);
+		int[] depths = new int[16];
+		edges[0] = below;
+		depths[0] = belowDepth;
+		int top = 1;
+		while (top > 0) {
+			Edge<I, S> edge = edges[--top];
+			int depth = depths[top];
+			Node<I, S> terminal = edge.getTerminal();
+			if (terminal == null) {
+				int start = edge.getStart() - depth;
+				int sequenceId = sequence.getSequenceId(start);
+				occurrences.add(new Occurrence(sequenceId, start
+						- sequence.getSequenceStart(sequenceId)));
+				continue;
+			}
+			int count = terminal.getEdgeCount();
+			if (top + count > edges.length) {
+				int length = Math.max(edges.length * 2, top + count);
+				edges = Arrays.copyOf(edges, length);
+				depths = Arrays.copyOf(depths, length);
+			}
+			int pushed = terminal.pushEdges(edges, top);
+			Arrays.fill(depths, top, pushed, depth + edge.getLength());
+			top = pushed;
+		}
+	}
+
+	/**
+	 * @return The number of entries written by
+	 *         {@link #writeSuffixArray(Comparator, IntBuffer, IntBuffer)},
+	 *         which is the number of items and terminals in the tree.
+	 */
+	public int getSuffixArrayLength() {
+		return sequence.getLength() - sequence.getFirstPosition();
+	}
+
+	/**
+	 * Writes the suffix array and LCP array of the sequences in the tree, by
+	 * walking the tree depth first with the children of each node in order.
+	 * 
+	 * The suffixes are those of the sequences laid end to end, each followed
+	 * by its terminal, and positions count from the first item of the oldest
+	 * sequence. A terminal sorts before every item, and terminals sort by the
+	 * order their sequences were added. The LCP of a suffix is the number of
+	 * items it shares with the suffix before it, and is zero for the first.
+	 * Terminals are never shared.
+	 * 
+	 * Each buffer receives {@link #getSuffixArrayLength()} values from its
+	 * current position, so the arrays may be written to an
+	 * <code>int[]</code> with {@link IntBuffer#wrap(int[])} or to a mapped
+	 * file.
+	 * 
+	 * @param order
+	 *            The order of the items, or null if the items are
+	 *            {@link Comparable}.
+	 * @param suffixes
+	 *            Receives the suffix array.
+	 * @param lcp
+	 *            Receives the LCP array, or null if it is not wanted.
+	 * @throws IllegalStateException
+	 *             if a sequence is open.
+	 */
+	public void writeSuffixArray(Comparator<? super I> order, IntBuffer suffixes,
+			IntBuffer lcp) {
+		checkNotStreaming();
+		SuffixArrayExport.write(this, order, suffixes, lcp);
+	}
+
+	/**
+	 * Writes the suffix array and LCP array, as
+	 * {@link #writeSuffixArray(Comparator, IntBuffer, IntBuffer)} does, to
+	 * files of native order <code>int</code> values, which are replaced.
+	 * 
+	 * @param order
+	 *            The order of the items, or null if the items are
+	 *            {@link Comparable}.
+	 * @param suffixes
+	 *            The file for the suffix array.
+	 * @param lcp
+	 *            The file for the LCP array.
+	 * @throws IOException
+	 *             if a file cannot be written.
+	 * @throws IllegalStateException
+	 *             if a sequence is open.
+	 */
+	public void writeSuffixArray(Comparator<? super I> order, File suffixes,
+			File lcp) throws IOException {
+		checkNotStreaming();
+		RandomAccessFile suffixFile = new RandomAccessFile(suffixes, "rw");
+		try {
+			RandomAccessFile lcpFile = new RandomAccessFile(lcp, "rw");
+			try {
+				writeSuffixArray(order, map(suffixFile), map(lcpFile));
+			} finally {
+				lcpFile.close();
+			}
+		} finally {
+			suffixFile.close();
+		}
+	}
+
+	private IntBuffer map(RandomAccessFile file) throws IOException {
+		long bytes = 4L * getSuffixArrayLength();
+		if (bytes > Integer.MAX_VALUE)
+			throw new IOException("The arrays are too large to map, " + bytes
+					+ " bytes each.");
+		file.setLength(bytes);
+		return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes)
+				.order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+	/**
+	 * Makes an immutable copy of this tree which may be queried by many
+	 * threads at once. The copy does not see sequences added to this tree
+	 * afterwards.
+	 * 
+	 * @return The frozen copy.
+	 * @throws IllegalStateException
+	 *             if a sequence is open.
+	 */
+	public FrozenSuffixTree<I, S> freeze() {
+		checkNotStreaming();
+		annotate();
+		return new FrozenSuffixTree<I, S>(this);
+	}
+
+	/**
+	 * Finds the longest run of items which occurs at least twice, within one
+	 * sequence or across several. A sequence equal to one added before it
+	 * shares that sequence's leaves, so does not repeat it. Of runs of equal
+	 * length, the one occurring earliest in the tree is returned.
+	 * 
+	 * @return The longest repeat, or null if no item occurs twice.
+	 */
+	public Repeat<I> longestRepeatedSubstring() {
+		return longest(0);
+	}
+
+	/**
+	 * Finds the longest run of items which occurs in at least the given
+	 * number of distinct sequences. A sequence equal to one added before it
+	 * shares that sequence's terminal, so is not counted separately. Of runs
+	 * of equal length, the one occurring earliest in the tree is returned.
+	 * 
+	 * @param k
+	 *            The least number of sequences the run must occur in.
+	 * @return The longest common run, or null if there is none.
+	 * @throws IllegalArgumentException
+	 *             if k is less than two.
+	 */
+	public Repeat<I> longestCommonSubstring(int k) {
+		if (k < 2)
+			throw new IllegalArgumentException("k must be at least two, but was " + k);
+		return longest(k);
+	}
+
+	/**
+	 * Finds the deepest internal node in at least the given number of
+	 * sequences, preferring the earliest of equally deep nodes.
+	 */
+	private Repeat<I> longest(final int sequences) {
+		final List<Node<I, S>> best = new ArrayList<Node<I, S>>();
+		final int[] bestStart = new int[1];
+		scanInternalNodes(root, new NodeScan<I, S>() {
+			public void visit(Node<I, S> node, int firstStart, boolean leftDiverse) {
+				if (node.getSequenceCount() < sequences)
+					return;
+				if (best.isEmpty()) {
+					best.add(node);
+				} else if (node.getDepth() > best.get(0).getDepth()
+						|| (node.getDepth() == best.get(0).getDepth() && firstStart < bestStart[0])) {
+					best.set(0, node);
+				} else {
+					return;
+				}
+				bestStart[0] = firstStart;
+			}
+		});
+		return best.isEmpty() ? null : repeat(best.get(0), bestStart[0]);
+	}
+
+	/**
+	 * Finds every maximal repeat of at least the given length. A maximal
+	 * repeat occurs at least twice and cannot be extended to the left or the
+	 * right without losing an occurrence, so these are the runs ending at an
+	 * internal node whose occurrences are not all preceded by the same item.
+	 * 
+	 * @param minLength
+	 *            The least number of items in a repeat.
+	 * @return The repeats, longest first and then by their first occurrence.
+	 */
+	public List<Repeat<I>> allMaximalRepeats(final int minLength) {
+		final List<Node<I, S>> nodes = new ArrayList<Node<I, S>>();
+		final List<Integer> starts = new ArrayList<Integer>();
+		scanInternalNodes(root, new NodeScan<I, S>() {
+			public void visit(Node<I, S> node, int firstStart, boolean leftDiverse) {
+				if (leftDiverse && node.getDepth() >= minLength) {
+					nodes.add(node);
+					starts.add(firstStart);
+				}
+			}
+		});
+		Integer[] order = new Integer[nodes.size()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				int first = nodes.get(a).getDepth();
+				int second = nodes.get(b).getDepth();
+				if (first != second)
+					return first > second ? -1 : 1;
+				return starts.get(a).compareTo(starts.get(b));
+			}
+		});
+		List<Repeat<I>> repeats = new ArrayList<Repeat<I>>(order.length);
+		for (int i : order)
+			repeats.add(repeat(nodes.get(i), starts.get(i)));
+		return repeats;
+	}
+
+	/**
+	 * Finds the runs of items which occur most often, counting every run of
+	 * an allowed length separately. Runs occurring only once are not
+	 * reported.
+	 * 
+	 * @param k
+	 *            The most runs to return.
+	 * @param minLength
+	 *            The least number of items in a run.
+	 * @param maxLength
+	 *            The most items in a run.
+	 * @return The runs, most occurrences first, then longest first and then
+	 *         by their first occurrence.
+	 * @see #mostFrequent(int, int, int, int)
+	 */
+	public List<Repeat<I>> mostFrequent(int k, int minLength, int maxLength) {
+		return mostFrequent(k, minLength, maxLength, 1);
+	}
+
+	/**
+	 * Finds the runs of items which occur most often, among those found in at
+	 * least the given number of distinct sequences, counting every run of an
+	 * allowed length separately. Runs occurring only once are not reported.
+	 * 
+	 * The counts of the internal nodes are read in one walk of the tree, run
+	 * in parallel below each child of the root, and only the best k runs are
+	 * held at any time, so the space needed depends on k rather than on the
+	 * number of distinct runs.
+	 * 
+	 * @param k
+	 *            The most runs to return.
+	 * @param minLength
+	 *            The least number of items in a run.
+	 * @param maxLength
+	 *            The most items in a run.
+	 * @param minSequences
+	 *            The least number of sequences a run must occur in.
+	 * @return The runs, most occurrences first, then longest first and then
+	 *         by their first occurrence.
+	 * @throws IllegalArgumentException
+	 *             if k is negative, minLength is less than one or maxLength
+	 *             is less than minLength.
+	 */
+	public List<Repeat<I>> mostFrequent(int k, int minLength, int maxLength,
+			int minSequences) {
+		if (k < 0)
+			throw new IllegalArgumentException("k must not be negative, but was " + k);
+		if (minLength < 1 || maxLength < minLength)
+			throw new IllegalArgumentException("Invalid length range " + minLength
+					+ " to " + maxLength);
+		annotate();
+		List<FrequentRuns> tasks = new ArrayList<FrequentRuns>();
+		for (Edge<I, S> edge : root) {
+			if (edge.getTerminal() == null)
+				continue;
+			FrequentRuns task = new FrequentRuns(edge.getTerminal(), k, minLength,
+					maxLength, minSequences);
+			task.fork();
+			tasks.add(task);
+		}
+		FrequentRuns best = new FrequentRuns(root, k, minLength, maxLength,
+				minSequences);
+		for (FrequentRuns task : tasks) {
+			task.join();
+			for (Run run : task.runs)
+				best.offer(run);
+		}
+		List<Run> runs = new ArrayList<Run>(best.runs);
+		Collections.sort(runs, Collections.reverseOrder(new RunOrder()));
+		List<Repeat<I>> repeats = new ArrayList<Repeat<I>>(runs.size());
+		for (Run run : runs)
+			repeats.add(repeat(run.node, run.start, run.length));
+		return repeats;
+	}
+
+	/**
+	 * Estimates the heap used by the tree, by visiting every node once. The
+	 * walk keeps its own stack of edges, which is the only allocation
+	 * besides the report, so it is cheap enough to run while the tree is in
+	 * use. The tree must not be changed during the walk.
+	 * 
+	 * @return The counts of nodes, leaves and edges, and the bytes used by
+	 *         each part of the tree.
+	 * @see MemoryReport
+	 */
+	public MemoryReport memoryReport() {
+		Edge<I, S>[] stack = Edge.newArray(Math.max(16, root.getEdgeCount()));
+		int top = root.pushEdges(stack, 0);
+		int nodes = 1;
+		int leaves = 0;
+		long childMaps = root.childMapBytes();
+		long terminalSets = root.terminalSetBytes();
+		while (top > 0) {
+			Node<I, S> node = stack[--top].getTerminal();
+			if (node == null) {
+				leaves++;
+				continue;
+			}
+			nodes++;
+			childMaps += node.childMapBytes();
+			terminalSets += node.terminalSetBytes();
+			if (top + node.getEdgeCount() > stack.length)
+				stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top
+						+ node.getEdgeCount()));
+			top = node.pushEdges(stack, top);
+		}
+		return new MemoryReport(nodes, leaves, childMaps, terminalSets,
+				sequence.storageBytes(), sequence.symbolBytes(),
+				getSuffixArrayLength());
+	}
+
+	/**
+	 * Reads a query and returns, for every position of it, the length of the
+	 * longest run of items starting there which occurs in the tree. The query
+	 * is read lazily and in linear time, so it may be a stream of any length.
+	 * 
+	 * @param query
+	 *            The items of the query.
+	 * @return The lengths, in query order.
+	 */
+	public MatchingStatistics<I, S> matchingStatistics(Iterator<? extends I> query) {
+		return new MatchingStatistics<I, S>(this, query);
+	}
+
+	private Repeat<I> repeat(Node<I, S> node, int start) {
+		return repeat(node, start, node.getDepth());
+	}
+
+	/**
+	 * @return The first length items of the given node's path, which occur
+	 *         as often as the node's items do.
+	 */
+	@SuppressWarnings("unchecked")
+	private Repeat<I> repeat(Node<I, S> node, int start, int length) {
+		List<I> items = new ArrayList<I>(length);
+		for (int i = start; i < start + length; i++)
+			items.add((I) sequence.getItem(i));
+		int sequenceId = sequence.getSequenceId(start);
+		return new Repeat<I>(items, new Occurrence(sequenceId, start
+				- sequence.getSequenceStart(sequenceId)), node.getLeafCount(),
+				node.getSequenceCount());
+	}
+
+	/**
+	 * Receives the internal nodes of the tree from
+	 * {@link SuffixTree#scanInternalNodes(Node, NodeScan)}.
+	 */
+	private interface NodeScan<I, S extends Iterable<I>> {
+		/**
+		 * @param node
+		 *            An internal node other than the root.
+		 * @param firstStart
+		 *            The earliest position in the master sequence at which
+		 *            the node's items occur.
+		 * @param leftDiverse
+		 *            True if the node's occurrences are not all preceded by
+		 *            the same item, counting the start of a sequence as
+		 *            different from everything.
+		 */
+		void visit(Node<I, S> node, int firstStart, boolean leftDiverse);
+	}
+
+	private static final int LEFT_UNSET = -1;
+	private static final int LEFT_DIVERSE = -2;
+
+	/**
+	 * Annotates the tree and passes every internal node below and including
+	 * the given node, except the root, to the scan, each after all of its
+	 * children, in one walk without recursion. The earliest start and the
+	 * item to the left of every occurrence are carried up from the leaves.
+	 */
+	private void scanInternalNodes(Node<I, S> from, NodeScan<I, S> scan) {
+		annotate();
+		List<Node<I, S>> path = new ArrayList<Node<I, S>>();
+		List<Iterator<Edge<I, S>>> pending = new ArrayList<Iterator<Edge<I, S>>>();
+		int[] firstStarts = new int[16];
+		int[] leftCodes = new int[16];
+		path.add(from);
+		pending.add(from.iterator());
+		firstStarts[0] = Integer.MAX_VALUE;
+		leftCodes[0] = LEFT_UNSET;
+		while (!path.isEmpty()) {
+			int top = path.size() - 1;
+			Node<I, S> node = path.get(top);
+			Iterator<Edge<I, S>> edges = pending.get(top);
+			if (edges.hasNext()) {
+				Edge<I, S> edge = edges.next();
+				Node<I, S> child = edge.getTerminal();
+				if (child == null) {
+					int start = edge.getStart() - node.getDepth();
+					firstStarts[top] = Math.min(firstStarts[top], start);
+					leftCodes[top] = mergeLeft(leftCodes[top], leftCode(start));
+				} else {
+					path.add(child);
+					pending.add(child.iterator());
+					if (firstStarts.length == path.size()) {
+						firstStarts = Arrays.copyOf(firstStarts, path.size() * 2);
+						leftCodes = Arrays.copyOf(leftCodes, path.size() * 2);
+					}
+					firstStarts[top + 1] = Integer.MAX_VALUE;
+					leftCodes[top + 1] = LEFT_UNSET;
+				}
+				continue;
+			}
+			path.remove(top);
+			pending.remove(top);
+			if (node != root)
+				scan.visit(node, firstStarts[top], leftCodes[top] == LEFT_DIVERSE);
+			if (top == 0)
+				continue;
+			firstStarts[top - 1] = Math.min(firstStarts[top - 1], firstStarts[top]);
+			leftCodes[top - 1] = mergeLeft(leftCodes[top - 1], leftCodes[top]);
+		}
+	}
+
+	/**
+	 * @return The code of the item before the given position, or
+	 *         LEFT_DIVERSE if the position starts a sequence.
+	 */
+	private int leftCode(int position) {
+		if (position == sequence.getSequenceStart(sequence.getSequenceId(position)))
+			return LEFT_DIVERSE;
+		return sequence.codeAt(position - 1);
+	}
+
+	private static int mergeLeft(int code, int other) {
+		return code == LEFT_UNSET ? other : code == other ? code : LEFT_DIVERSE;
+	}
+
+	/**
+	 * Walks the given pattern down from the root, comparing the code of each
+	 * item with the codes in the master sequence.
+	 * 
+	 * @param pattern
+	 *            The pattern to walk.
+	 * @return Where the walk ended, or null if the pattern does not occur.
+	 */
+	private Match<I, S> find(S pattern) {
+		Node<I, S> node = root;
+		Edge<I, S> edge = null;
+		int length = 0;
+		int depth = 0;
+		for (I item : pattern) {
+			int code = sequence.lookup(item);
+			if (code == SymbolTable.NONE)
+				return null;
+			if (edge != null && length == edge.getLength()) {
+				node = edge.getTerminal();
+				if (node == null)
+					return null;
+				depth += length;
+				edge = null;
+			}
+			if (edge == null) {
+				edge = node.getEdgeStartingCode(code);
+				if (edge == null)
+					return null;
+				length = 1;
+			} else if (code == sequence.codeAt(edge.getStart() + length)) {
+				length++;
+			} else {
+				return null;
+			}
+		}
+		return new Match<I, S>(edge, depth);
+	}
+
+	/**
+	 * Records the string depth, the number of leaves and the number of
+	 * distinct sequences below every node, visiting the nodes without
+	 * recursion. This is done at most once between changes to the tree.
+	 * 
+	 * Sequence counts use Hui's method. The leaves are visited in depth first
+	 * order, and each leaf marks the lowest common ancestor of itself and the
+	 * previous leaf from the same sequence. A node's sequence count is then
+	 * its leaf count less the marks in its subtree. The common ancestor is
+	 * found by binary search over the preorder numbers of the nodes on the
+	 * current path, since the earlier leaf's ancestors on that path are
+	 * exactly those numbered before it.
+	 */
+	void annotate() {
+		if (annotated)
+			return;
+		long started = counters == null ? 0 : System.nanoTime();
+		List<Node<I, S>> order = new ArrayList<Node<I, S>>();
+		int firstId = sequence.getFirstSequenceId();
+		int[] lastLeaf = new int[sequence.getSequenceCount() - firstId + 1];
+		Arrays.fill(lastLeaf, -1);
+		List<Node<I, S>> path = new ArrayList<Node<I, S>>();
+		List<Iterator<Edge<I, S>>> pending = new ArrayList<Iterator<Edge<I, S>>>();
+		int[] pathNumbers = new int[16];
+		int visited = 0;
+		root.setDepth(0);
+		root.setSequenceCount(0);
+		order.add(root);
+		path.add(root);
+		pending.add(root.iterator());
+		pathNumbers[0] = visited++;
+		while (!path.isEmpty()) {
+			int top = path.size() - 1;
+			Node<I, S> node = path.get(top);
+			Iterator<Edge<I, S>> edges = pending.get(top);
+			if (!edges.hasNext()) {
+				path.remove(top);
+				pending.remove(top);
+				continue;
+			}
+			Edge<I, S> edge = edges.next();
+			int number = visited++;
+			Node<I, S> child = edge.getTerminal();
+			if (child != null) {
+				child.setDepth(node.getDepth() + edge.getLength());
+				child.setSequenceCount(0);
+				order.add(child);
+				path.add(child);
+				pending.add(child.iterator());
+				if (pathNumbers.length == path.size())
+					pathNumbers = Arrays.copyOf(pathNumbers, path.size() * 2);
+				pathNumbers[top + 1] = number;
+				continue;
+			}
+			int sequenceId = sequence.getSequenceId(edge.getStart() - node.getDepth())
+					- firstId;
+			int previous = lastLeaf[sequenceId];
+			lastLeaf[sequenceId] = number;
+			if (previous >= 0) {
+				int index = Arrays.binarySearch(pathNumbers, 0, path.size(), previous);
+				Node<I, S> ancestor = path.get(index >= 0 ? index : -(index + 1) - 1);
+				ancestor.setSequenceCount(ancestor.getSequenceCount() + 1);
+			}
+		}
+		for (int i = order.size() - 1; i >= 0; i--) {
+			Node<I, S> node = order.get(i);
+			int leaves = 0;
+			int duplicates = node.getSequenceCount();
+			for (Edge<I, S> edge : node) {
+				Node<I, S> child = edge.getTerminal();
+				if (child == null) {
+					leaves++;
+				} else {
+					leaves += child.getLeafCount();
+					duplicates += child.getLeafCount() - child.getSequenceCount();
+				}
+			}
+			node.setLeafCount(leaves);
+			node.setSequenceCount(leaves - duplicates);
+		}
+		annotated = true;
+		if (counters != null) {
+			counters.annotateNanos += System.nanoTime() - started;
+			listener.annotated(counters.snapshot());
+		}
+	}
+
+	/**
+	 * A run of items ending on the incoming edge of a node, so occurring as
+	 * often as the node's items do.
+	 */
+	private final class Run {
+		final Node<I, S> node;
+		final int start;
+		final int length;
+
+		Run(Node<I, S> node, int start, int length) {
+			this.node = node;
+			this.start = start;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * Orders runs from worst to best: fewest occurrences, then shortest and
+	 * then latest first occurrence.
+	 */
+	private final class RunOrder implements Comparator<Run> {
+		public int compare(Run a, Run b) {
+			int first = a.node.getLeafCount();
+			int second = b.node.getLeafCount();
+			if (first != second)
+				return first < second ? -1 : 1;
+			if (a.length != b.length)
+				return a.length < b.length ? -1 : 1;
+			return a.start > b.start ? -1 : a.start == b.start ? 0 : 1;
+		}
+	}
+
+	/**
+	 * Keeps the best runs ending below one node in a bounded heap whose head
+	 * is the worst run kept.
+	 */
+	private final class FrequentRuns extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Node<I, S> from;
+		private final int k;
+		private final int minLength;
+		private final int maxLength;
+		private final int minSequences;
+		private final RunOrder order = new RunOrder();
+		final PriorityQueue<Run> runs = new PriorityQueue<Run>(11, order);
+
+		FrequentRuns(Node<I, S> from, int k, int minLength, int maxLength,
+				int minSequences) {
+			this.from = from;
+			this.k = k;
+			this.minLength = minLength;
+			this.maxLength = maxLength;
+			this.minSequences = minSequences;
+		}
+
+		@Override
+		protected void compute() {
+			scanInternalNodes(from, new NodeScan<I, S>() {
+				public void visit(Node<I, S> node, int firstStart, boolean leftDiverse) {
+					if (node.getSequenceCount() < minSequences)
+						return;
+					int shortest = Math.max(minLength, node.getDepth()
+							- node.getIncomingEdge().getLength() + 1);
+					for (int length = Math.min(maxLength, node.getDepth()); length >= shortest; length--) {
+						if (!offer(new Run(node, firstStart, length)))
+							break;
+					}
+				}
+			});
+		}
+
+		/**
+		 * @return False if the run was worse than every run kept.
+		 */
+		boolean offer(Run run) {
+			if (runs.size() < k) {
+				runs.add(run);
+				return true;
+			}
+			if (k == 0 || order.compare(run, runs.peek()) <= 0)
+				return false;
+			runs.poll();
+			runs.add(run);
+			return true;
+		}
+	}
+
+	/**
+	 * The end point of a pattern walked down the tree: the edge on which the
+	 * pattern ended, null for the empty pattern, and the number of items
+	 * above the start of that edge.
+	 */
+	private static final class Match<I, S extends Iterable<I>> {
+		final Edge<I, S> edge;
+		final int depth;
+
+		Match(Edge<I, S> edge, int depth) {
+			this.edge = edge;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * Runs Ukkonen's algorithm over the given range of the master sequence.
+	 * Each step inserts the remaining suffixes one after another from the
+	 * active point until either the remainder is empty or the current item is
+	 * already present, so the stack depth is constant regardless of how many
+	 * suffixes are pending.
+	 * 
+	 * @param from
+	 *            The first position in the master sequence to process.
+	 * @param to
+	 *            The position after the last item to process.
+	 */
 	private void extendTree(int from, int to) {
+		long started = counters == null ? 0 : System.nanoTime();
 		for (int i = from; i < to; i++){
 			suffix.increment();
+			if (counters != null)
+				counters.remainder(suffix.getRemaining());
 			insertsThisStep = 0;
-			insert(suffix);
+			while (insert(suffix))
+				;
 			currentEnd++;
 		}
+		if (counters != null) {
+			counters.items += to - from;
+			counters.extendNanos += System.nanoTime() - started;
+		}
 	}	
 	
 
 	/**
-	 * Inserts the given suffix into this tree.
+	 * Inserts the given suffix into this tree at the active point.
 	 * 
 	 * @param suffix
 	 *            The suffix to insert.
+	 * @return True if an insert was made and part of the suffix still remains
+	 *         to be inserted during this step. False if the step is complete.
 	 */
-	void insert(Suffix<I, S> suffix) {
+	boolean insert(Suffix<I, S> suffix) {
 		if (activePoint.isNode()) {
 			Node<I, S> node = activePoint.getNode();
-			node.insert(suffix, activePoint);
+			return node.insert(suffix, activePoint);
 		} else if (activePoint.isEdge()) {
 			Edge<I,S> edge = activePoint.getEdge();
-			edge.insert(suffix, activePoint);
+			return edge.insert(suffix, activePoint);
 		}
+		return false;
 	}
 
 	/**
@@ -0,0 +1,125 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns each distinct item a small, non negative <code>int</code> code, so
+ * that a {@link Sequence} can hold items as codes and the tree can compare
+ * them without calling <code>equals</code>. Items equal to each other share
+ * a code.
+ * 
+ * Each code counts the items using it. When the last of them is released the
+ * item is forgotten and its code is reused for the next new item, so a table
+ * behind a sliding window only holds the items in the window.
+ * 
+ * @author Max Garfinkel
+ */
+final class SymbolTable {
+
+	/**
+	 * The code returned by {@link #lookup(Object)} for an item which has never
+	 * been encoded. No item or terminal has this code.
+	 */
+	static final int NONE = Integer.MIN_VALUE;
+
+	private final Map<Object, Integer> codes = new HashMap<Object, Integer>();
+	private final List<Object> items = new ArrayList<Object>();
+	private int[] uses = new int[16];
+	private int[] free = new int[16];
+	private int freeCount = 0;
+
+	/**
+	 * Retrieves the code for an item, assigning a free code if the item is
+	 * not held, and counts one more use of it.
+	 * 
+	 * @param item
+	 *            The item to encode.
+	 * @return The item's code.
+	 */
+	int encode(Object item) {
+		Integer code = codes.get(item);
+		if (code == null) {
+			if (freeCount > 0) {
+				code = free[--freeCount];
+				items.set(code, item);
+			} else {
+				code = items.size();
+				items.add(item);
+				if (code == uses.length)
+					uses = Arrays.copyOf(uses, code * 2);
+			}
+			codes.put(item, code);
+		}
+		uses[code]++;
+		return code;
+	}
+
+	/**
+	 * Counts one less use of a code, forgetting its item and freeing the code
+	 * if it was the last.
+	 * 
+	 * @param code
+	 *            A code returned by {@link #encode(Object)}.
+	 */
+	void release(int code) {
+		if (--uses[code] > 0)
+			return;
+		codes.remove(items.get(code));
+		items.set(code, null);
+		if (freeCount == free.length)
+			free = Arrays.copyOf(free, freeCount * 2);
+		free[freeCount++] = code;
+	}
+
+	/**
+	 * Retrieves the code for an item without assigning one.
+	 * 
+	 * @param item
+	 *            The item to look up.
+	 * @return The item's code, or {@link #NONE} if it is not held.
+	 */
+	int lookup(Object item) {
+		Integer code = codes.get(item);
+		return code == null ? NONE : code;
+	}
+
+	/**
+	 * @param code
+	 *            A code returned by {@link #encode(Object)}.
+	 * @return The item with the code.
+	 */
+	Object decode(int code) {
+		return items.get(code);
+	}
+
+	/**
+	 * @return The estimated bytes used by the table, not counting the items.
+	 */
+	long bytes() {
+		return MemoryReport.hashMap(codes.size()) + codes.size()
+				* MemoryReport.INTEGER
+				+ MemoryReport.align(MemoryReport.HEADER + MemoryReport.REFERENCE + 2 * 4)
+				+ MemoryReport.array(items.size(), MemoryReport.REFERENCE)
+				+ MemoryReport.array(uses.length, 4)
+				+ MemoryReport.array(free.length, 4);
+	}
+
+	/**
+	 * @return One more than the largest code assigned, which is the number
+	 *         of distinct items encoded if none has been released.
+	 */
+	int size() {
+		return items.size();
+	}
+
+	/**
+	 * @return The number of items held.
+	 */
+	int count() {
+		return codes.size();
+	}
+}
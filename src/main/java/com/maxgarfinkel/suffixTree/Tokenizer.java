@@ -0,0 +1,88 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.Arrays;
+
+/**
+ * Splits text into tokens and maps each token to its id in a
+ * {@link WordCache}. A token is a run of letters and digits, folded to lower
+ * case, and everything else separates tokens.
+ * 
+ * A tokenizer holds no state of its own, so threads sharing a cache may share
+ * a tokenizer too.
+ * 
+ * @author Max Garfinkel
+ */
+public class Tokenizer {
+
+	private final WordCache cache;
+
+	/**
+	 * Creates a tokenizer which assigns ids from the given cache.
+	 * 
+	 * @param cache
+	 *            The cache of tokens.
+	 */
+	public Tokenizer(WordCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Maps the tokens of some text to their ids, assigning ids to new tokens.
+	 * 
+	 * @param text
+	 *            The text.
+	 * @return The id of each token in order.
+	 * @throws IllegalStateException
+	 *             if a token is new and the cache is full.
+	 */
+	public int[] tokenize(CharSequence text) {
+		return map(text, true);
+	}
+
+	/**
+	 * Maps the tokens of some text to their ids without assigning any, as
+	 * when searching for a phrase.
+	 * 
+	 * @param text
+	 *            The text.
+	 * @return The id of each token in order, or null if any token is not in
+	 *         the cache.
+	 */
+	public int[] lookup(CharSequence text) {
+		return map(text, false);
+	}
+
+	/**
+	 * @return The cache the tokens are held in.
+	 */
+	public WordCache getCache() {
+		return cache;
+	}
+
+	private int[] map(CharSequence text, boolean assign) {
+		int[] ids = new int[16];
+		int count = 0;
+		char[] token = new char[16];
+		int length = 0;
+		for (int i = 0; i <= text.length(); i++) {
+			char c = i < text.length() ? text.charAt(i) : ' ';
+			if (Character.isLetterOrDigit(c)) {
+				if (length == token.length)
+					token = Arrays.copyOf(token, length * 2);
+				token[length++] = Character.toLowerCase(c);
+				continue;
+			}
+			if (length == 0)
+				continue;
+			Word word = new Word(token, 0, length);
+			length = 0;
+			int id = assign ? cache.id(word) : cache.lookup(word);
+			if (id == WordCache.NONE)
+				return null;
+			if (count == ids.length)
+				ids = Arrays.copyOf(ids, count * 2);
+			ids[count++] = id;
+		}
+		return Arrays.copyOf(ids, count);
+	}
+}
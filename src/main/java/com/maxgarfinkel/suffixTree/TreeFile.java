@@ -0,0 +1,190 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the single file format in which a
+ * {@link PrimitiveSuffixTree} is saved.
+ *
+ * The file starts with the magic number, the format version and the number
+ * of sections, followed by a directory giving the name, offset and length of
+ * each section. Each section holds the used part of one series of
+ * {@link Pages}, starting on a 4096 byte boundary. Values are written in the
+ * native byte order of the machine saving the file, which is detected from
+ * the magic number when loading.
+ *
+ * A loaded file is itself a read only {@link TreeStorage}, whose pages are
+ * slices of the mapped file, so a tree opens without copying its nodes or
+ * text. Only the child tables of nodes with many children are rebuilt on the
+ * heap.
+ *
+ * @author Max Garfinkel
+ */
+final class TreeFile extends TreeStorage {
+
+	static final int MAGIC = 0x53465854;
+	static final int VERSION = 2;
+
+	private static final int ALIGNMENT = 4096;
+
+	/**
+	 * The used part of one series of pages.
+	 */
+	static final class Section {
+		final Pages pages;
+		final int count;
+
+		Section(Pages pages, int count) {
+			this.pages = pages;
+			this.count = count;
+		}
+	}
+
+	private final FileChannel channel;
+	private final Map<String, long[]> sections = new HashMap<String, long[]>();
+
+	private TreeFile(FileChannel channel) throws IOException {
+		this.channel = channel;
+		ByteBuffer start = ByteBuffer.allocate(12).order(ByteOrder.nativeOrder());
+		readFully(start, 0);
+		if (start.getInt(0) != MAGIC) {
+			if (Integer.reverseBytes(start.getInt(0)) == MAGIC)
+				throw new IOException(
+						"The file was saved with a different byte order.");
+			throw new IOException("The file does not hold a suffix tree.");
+		}
+		if (start.getInt(4) != VERSION)
+			throw new IOException("Unsupported format version "
+					+ start.getInt(4) + ".");
+		int count = start.getInt(8);
+		long position = 12;
+		for (int i = 0; i < count; i++) {
+			ByteBuffer length = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+			readFully(length, position);
+			ByteBuffer entry = ByteBuffer.allocate(length.getInt(0) + 16).order(
+					ByteOrder.nativeOrder());
+			readFully(entry, position + 4);
+			byte[] name = new byte[length.getInt(0)];
+			entry.get(name);
+			sections.put(new String(name, StandardCharsets.US_ASCII), new long[] {
+					entry.getLong(), entry.getLong() });
+			position += 4 + entry.capacity();
+		}
+	}
+
+	/**
+	 * Maps a saved tree for reading.
+	 *
+	 * @param file
+	 *            The file to read.
+	 * @return The storage holding the tree.
+	 * @throws IOException
+	 *             if the file cannot be read or is not a saved tree.
+	 */
+	static TreeFile map(File file) throws IOException {
+		FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+		try {
+			return new TreeFile(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes the given sections to a file, replacing anything already there.
+	 *
+	 * @param file
+	 *            The file to write.
+	 * @param contents
+	 *            The sections to write.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	static void write(File file, List<Section> contents) throws IOException {
+		int directoryLength = 12;
+		for (Section section : contents)
+			directoryLength += 4 + section.pages.getName().length() + 16;
+		ByteBuffer directory = ByteBuffer.allocate(directoryLength).order(
+				ByteOrder.nativeOrder());
+		directory.putInt(MAGIC).putInt(VERSION).putInt(contents.size());
+		long offset = align(directoryLength);
+		for (Section section : contents) {
+			byte[] name = section.pages.getName().getBytes(StandardCharsets.US_ASCII);
+			long length = (long) section.count * section.pages.getWidth();
+			directory.putInt(name.length).put(name).putLong(offset).putLong(length);
+			offset = align(offset + length);
+		}
+		directory.flip();
+		RandomAccessFile output = new RandomAccessFile(file, "rw");
+		try {
+			FileChannel channel = output.getChannel();
+			channel.truncate(0);
+			while (directory.hasRemaining())
+				channel.write(directory);
+			offset = align(directoryLength);
+			for (Section section : contents) {
+				channel.position(offset);
+				section.pages.writeTo(channel, section.count);
+				offset = align(offset + (long) section.count
+						* section.pages.getWidth());
+			}
+			if (channel.size() < offset)
+				channel.write(ByteBuffer.allocate(1), offset - 1);
+		} finally {
+			output.close();
+		}
+	}
+
+	@Override
+	ByteBuffer page(String name, int index) {
+		long[] section = sections.get(name);
+		long from = (long) index * PAGE_BYTES;
+		if (section == null || from >= section[1])
+			throw new IllegalStateException("The file has no page " + index
+					+ " of " + name + ".");
+		try {
+			return channel.map(FileChannel.MapMode.READ_ONLY, section[0] + from,
+					Math.min(PAGE_BYTES, section[1] - from)).order(
+					ByteOrder.nativeOrder());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				throw new IOException("The file is truncated.");
+		}
+		buffer.flip();
+	}
+
+	private static long align(long offset) {
+		return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+	}
+}
@@ -0,0 +1,275 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merges generalised suffix trees built independently over disjoint sets of
+ * sequences into one tree, as used by {@link ParallelSuffixTreeBuilder}.
+ * 
+ * The sequences of the source tree are appended to the target's master
+ * sequence, so every position in the source moves by a fixed offset. The
+ * source's edges are then walked against the target's. Where a source label
+ * diverges from a target edge part way along, the target edge is split and
+ * the rest of the source subtree is copied beneath the new node. Work below
+ * each edge leaving the source root touches a separate part of the target,
+ * so those parts are merged in parallel.
+ * 
+ * Merging leaves suffix links stale, so once all merging is done
+ * {@link #linkSuffixes(SuffixTree, ForkJoinPool)} recomputes them, allowing
+ * further sequences to be added to the result with
+ * {@link SuffixTree#add(Iterable)}.
+ * 
+ * @author Max Garfinkel
+ */
+final class TreeMerger<I, S extends Iterable<I>> {
+
+	private final SuffixTree<I, S> target;
+	private final Sequence<I, S> sequence;
+	private final int offset;
+
+	private TreeMerger(SuffixTree<I, S> target, int offset) {
+		this.target = target;
+		this.sequence = target.getSequence();
+		this.offset = offset;
+	}
+
+	/**
+	 * Merges the source tree into the target tree.
+	 * 
+	 * @param target
+	 *            The tree to merge into, which is modified.
+	 * @param source
+	 *            The tree to merge from, which must not be used afterwards.
+	 * @param sourceSequences
+	 *            The sequences of the source tree in the order they were
+	 *            added to it.
+	 * @param pool
+	 *            The pool in which to run the merge.
+	 */
+	static <I, S extends Iterable<I>> void merge(SuffixTree<I, S> target,
+			SuffixTree<I, S> source, List<S> sourceSequences, ForkJoinPool pool) {
+		int offset = target.getSequence().getLength();
+		for (S sequence : sourceSequences)
+			target.appendWithoutExtending(sequence);
+		final TreeMerger<I, S> merger = new TreeMerger<I, S>(target, offset);
+		Node<I, S> root = target.getRoot();
+		root.addSuffixTerminals(source.getRoot().getSuffixTerminals());
+		List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+		for (final Edge<I, S> edge : source.getRoot()) {
+			final Edge<I, S> existing = root.getEdgeStartingCode(target.getSequence()
+					.codeAt(edge.getStart() + offset));
+			if (existing == null) {
+				merger.copy(root, edge, 0);
+				continue;
+			}
+			tasks.add(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					merger.mergeBelow(existing, edge);
+				}
+			});
+		}
+		runAll(pool, tasks);
+	}
+
+	/**
+	 * Merges a source edge, and everything below it, into the target given
+	 * that the target edge starts with the same item.
+	 */
+	private void mergeBelow(Edge<I, S> existing, Edge<I, S> edge) {
+		List<Node<I, S>> nodes = new ArrayList<Node<I, S>>();
+		List<Edge<I, S>> edges = new ArrayList<Edge<I, S>>();
+		List<Integer> skips = new ArrayList<Integer>();
+		nodes.add(existing.getParent());
+		edges.add(edge);
+		skips.add(0);
+		while (!edges.isEmpty()) {
+			int last = edges.size() - 1;
+			Node<I, S> node = nodes.remove(last);
+			Edge<I, S> source = edges.remove(last);
+			int skip = skips.remove(last);
+
+			int from = source.getStart() + offset + skip;
+			int length = sourceEnd(source) - from;
+			Edge<I, S> match = node.getEdgeStartingCode(sequence.codeAt(from));
+			if (match == null) {
+				copy(node, source, skip);
+				continue;
+			}
+			int matchLength = targetEnd(match) - match.getStart();
+			int common = 1;
+			int limit = Math.min(length, matchLength);
+			while (common < limit
+					&& sequence.codeAt(match.getStart() + common) == sequence
+							.codeAt(from + common))
+				common++;
+
+			if (common < length && common < matchLength) {
+				copy(match.splitAt(common), source, skip + common);
+			} else if (common == length && common < matchLength) {
+				if (source.getTerminal() == null)
+					continue;
+				Node<I, S> split = match.splitAt(common);
+				pushChildren(split, source.getTerminal(), nodes, edges, skips);
+			} else if (common < length) {
+				if (match.getTerminal() == null)
+					continue;
+				nodes.add(match.getTerminal());
+				edges.add(source);
+				skips.add(skip + common);
+			} else if (match.getTerminal() != null && source.getTerminal() != null) {
+				pushChildren(match.getTerminal(), source.getTerminal(), nodes,
+						edges, skips);
+			}
+		}
+	}
+
+	private void pushChildren(Node<I, S> node, Node<I, S> source,
+			List<Node<I, S>> nodes, List<Edge<I, S>> edges, List<Integer> skips) {
+		node.addSuffixTerminals(source.getSuffixTerminals());
+		for (Edge<I, S> child : source) {
+			nodes.add(node);
+			edges.add(child);
+			skips.add(0);
+		}
+	}
+
+	/**
+	 * Copies a source edge, less its first <code>skip</code> items, and the
+	 * subtree below it into the target beneath the given node.
+	 */
+	private void copy(Node<I, S> parent, Edge<I, S> edge, int skip) {
+		List<Node<I, S>> parents = new ArrayList<Node<I, S>>();
+		List<Edge<I, S>> edges = new ArrayList<Edge<I, S>>();
+		List<Integer> skips = new ArrayList<Integer>();
+		parents.add(parent);
+		edges.add(edge);
+		skips.add(skip);
+		while (!edges.isEmpty()) {
+			int last = edges.size() - 1;
+			Node<I, S> node = parents.remove(last);
+			Edge<I, S> source = edges.remove(last);
+			int start = source.getStart() + offset + skips.remove(last);
+			Node<I, S> terminal = source.getTerminal();
+			Edge<I, S> copy = new Edge<I, S>(start, terminal == null ? -1
+					: source.getEnd() + offset, node, sequence, target);
+			node.insert(copy);
+			if (terminal != null) {
+				Node<I, S> child = new Node<I, S>(copy, sequence, target);
+				child.addSuffixTerminals(terminal.getSuffixTerminals());
+				copy.setTerminal(child);
+				for (Edge<I, S> grandChild : terminal) {
+					parents.add(child);
+					edges.add(grandChild);
+					skips.add(0);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the position after the last item of a source edge, moved
+	 * into the target, which can match anything, that is after its terminal
+	 * for a leaf.
+	 */
+	private int sourceEnd(Edge<I, S> edge) {
+		if (edge.getTerminal() != null)
+			return edge.getEnd() + offset;
+		return leafEnd(edge.getStart() + offset);
+	}
+
+	/**
+	 * Retrieves the position after the last item of a target edge which can
+	 * match anything.
+	 */
+	private int targetEnd(Edge<I, S> edge) {
+		if (edge.getTerminal() != null)
+			return edge.getEnd();
+		return leafEnd(edge.getStart());
+	}
+
+	private int leafEnd(int start) {
+		return sequence.getTerminalPosition(sequence.getSequenceId(start)) + 1;
+	}
+
+	/**
+	 * Sets the suffix link of every internal node of the tree. The link of a
+	 * node is found by walking its edge label from the link of its parent,
+	 * jumping whole edges at a time, so the nodes are visited parents first.
+	 * Each subtree below the root is linked by a separate task.
+	 * 
+	 * @param tree
+	 *            The tree to link.
+	 * @param pool
+	 *            The pool in which to run.
+	 */
+	static <I, S extends Iterable<I>> void linkSuffixes(final SuffixTree<I, S> tree,
+			ForkJoinPool pool) {
+		final Node<I, S> root = tree.getRoot();
+		final Sequence<I, S> sequence = tree.getSequence();
+		List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+		for (final Edge<I, S> edge : root) {
+			if (edge.getTerminal() == null)
+				continue;
+			tasks.add(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					List<Edge<I, S>> queue = new ArrayList<Edge<I, S>>();
+					queue.add(edge);
+					for (int i = 0; i < queue.size(); i++) {
+						Edge<I, S> current = queue.get(i);
+						Node<I, S> parent = current.getParent();
+						Node<I, S> node = current.getTerminal();
+						int from = current.getStart();
+						if (parent == root)
+							from++;
+						Node<I, S> start = parent == root ? root : parent
+								.getSuffixLink();
+						node.setSuffixLink(start == null ? null : walk(start,
+								from, current.getEnd(), sequence));
+						for (Edge<I, S> child : node) {
+							if (child.getTerminal() != null)
+								queue.add(child);
+						}
+					}
+				}
+			});
+		}
+		runAll(pool, tasks);
+	}
+
+	/**
+	 * Walks the items in the given range of the master sequence down from a
+	 * node, jumping whole edges. Returns null if the range does not end on a
+	 * node.
+	 */
+	private static <I, S extends Iterable<I>> Node<I, S> walk(Node<I, S> node,
+			int from, int to, Sequence<I, S> sequence) {
+		while (from < to) {
+			Edge<I, S> edge = node.getEdgeStartingCode(sequence.codeAt(from));
+			if (edge == null || edge.getTerminal() == null
+					|| edge.getLength() > to - from)
+				return null;
+			from += edge.getLength();
+			node = edge.getTerminal();
+		}
+		return node;
+	}
+
+	private static void runAll(ForkJoinPool pool, final List<RecursiveAction> tasks) {
+		if (ForkJoinTask.inForkJoinPool()) {
+			ForkJoinTask.invokeAll(tasks);
+			return;
+		}
+		pool.invoke(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		});
+	}
+}
@@ -0,0 +1,236 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allocates the memory in which a {@link PrimitiveSuffixTree} keeps its
+ * nodes and text.
+ *
+ * Memory is handed out as pages, one named series of pages for each array
+ * the tree keeps. The pages can live on the heap, in direct buffers outside
+ * the heap, or in memory mapped files. Trees in direct or mapped storage are
+ * invisible to the garbage collector and may be larger than the heap.
+ *
+ * Mapped files are always handed out in whole pages. On the heap and in
+ * direct buffers the first page of a series starts at
+ * {@link #FIRST_PAGE_BYTES} and doubles as it fills, so a small tree costs
+ * little more than its contents.
+ *
+ * A tree in mapped storage can be reopened from the same directory by
+ * constructing a tree of the same kind with a new mapped storage. Only the
+ * children of nodes with many children are read up front, to rebuild their
+ * lookup tables, and other pages are mapped as the tree first touches them.
+ *
+ * @author Max Garfinkel
+ */
+public abstract class TreeStorage implements Closeable {
+
+	/**
+	 * The size in bytes of every page.
+	 */
+	static final int PAGE_BYTES = 1 << 18;
+
+	/**
+	 * The size in bytes of the first page of a series on the heap or in
+	 * direct buffers, before it has grown.
+	 */
+	static final int FIRST_PAGE_BYTES = 1 << 8;
+
+	TreeStorage() {
+	}
+
+	/**
+	 * Creates storage on the Java heap. This is the storage used by trees
+	 * constructed without one.
+	 *
+	 * @return The storage.
+	 */
+	public static TreeStorage heap() {
+		return new BufferStorage(false);
+	}
+
+	/**
+	 * Creates storage in direct buffers outside the Java heap.
+	 *
+	 * @return The storage.
+	 */
+	public static TreeStorage direct() {
+		return new BufferStorage(true);
+	}
+
+	/**
+	 * Creates storage in memory mapped files held in the given directory. If
+	 * the directory already holds a tree it is reopened, otherwise the
+	 * directory is created if necessary.
+	 *
+	 * @param directory
+	 *            The directory holding the files.
+	 * @return The storage.
+	 */
+	public static TreeStorage mapped(File directory) {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new UncheckedIOException(new IOException("Could not create "
+					+ directory));
+		return new MappedStorage(directory);
+	}
+
+	/**
+	 * Opens a tree saved with {@link PrimitiveSuffixTree#save(File)}. The
+	 * file is mapped rather than read, so opening only reads the children of
+	 * nodes with many children, to rebuild their lookup tables. A tree
+	 * constructed over the storage answers queries, from any number of
+	 * threads, but cannot have sequences added to it.
+	 *
+	 * @param file
+	 *            The saved tree.
+	 * @return The storage.
+	 * @throws IOException
+	 *             if the file cannot be read or does not hold a saved tree.
+	 */
+	public static TreeStorage open(File file) throws IOException {
+		return TreeFile.map(file);
+	}
+
+	/**
+	 * Retrieves a page of the named series, allocating it if it does not yet
+	 * exist.
+	 *
+	 * @param name
+	 *            The name of the series.
+	 * @param index
+	 *            The index of the page within the series.
+	 * @return A buffer of {@link #PAGE_BYTES} bytes in native byte order.
+	 */
+	abstract ByteBuffer page(String name, int index);
+
+	/**
+	 * Replaces the first page of a series with a larger one holding the same
+	 * values, for storage whose pages start small.
+	 *
+	 * @param page
+	 *            The current first page, or null if the series has none.
+	 * @param bytes
+	 *            The size of the new page, a power of two no larger than
+	 *            {@link #PAGE_BYTES}.
+	 * @return The new page in native byte order, or null if this storage
+	 *         only hands out whole pages.
+	 */
+	ByteBuffer growFirstPage(ByteBuffer page, int bytes) {
+		return null;
+	}
+
+	/**
+	 * @return True if the pages of this storage cannot be written.
+	 */
+	boolean isReadOnly() {
+		return false;
+	}
+
+	/**
+	 * Writes any changes to pages to the underlying storage.
+	 */
+	public void flush() {
+	}
+
+	/**
+	 * Flushes and releases the storage. The tree using it must not be used
+	 * afterwards.
+	 */
+	@Override
+	public void close() {
+		flush();
+	}
+
+	private static final class BufferStorage extends TreeStorage {
+
+		private final boolean direct;
+
+		BufferStorage(boolean direct) {
+			this.direct = direct;
+		}
+
+		@Override
+		ByteBuffer page(String name, int index) {
+			return allocate(PAGE_BYTES);
+		}
+
+		@Override
+		ByteBuffer growFirstPage(ByteBuffer page, int bytes) {
+			ByteBuffer grown = allocate(bytes);
+			if (page != null) {
+				ByteBuffer old = page.duplicate();
+				old.clear();
+				grown.put(old);
+				grown.clear();
+			}
+			return grown;
+		}
+
+		private ByteBuffer allocate(int bytes) {
+			ByteBuffer page = direct ? ByteBuffer.allocateDirect(bytes)
+					: ByteBuffer.allocate(bytes);
+			return page.order(ByteOrder.nativeOrder());
+		}
+	}
+
+	private static final class MappedStorage extends TreeStorage {
+
+		private final File directory;
+		private final Map<String, FileChannel> channels = new HashMap<String, FileChannel>();
+		private final List<MappedByteBuffer> pages = new ArrayList<MappedByteBuffer>();
+
+		MappedStorage(File directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		ByteBuffer page(String name, int index) {
+			try {
+				FileChannel channel = channels.get(name);
+				if (channel == null) {
+					channel = new RandomAccessFile(new File(directory, name
+							+ ".pages"), "rw").getChannel();
+					channels.put(name, channel);
+				}
+				MappedByteBuffer page = channel.map(
+						FileChannel.MapMode.READ_WRITE, (long) index * PAGE_BYTES,
+						PAGE_BYTES);
+				pages.add(page);
+				page.order(ByteOrder.nativeOrder());
+				return page;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public void flush() {
+			for (MappedByteBuffer page : pages)
+				page.force();
+		}
+
+		@Override
+		public void close() {
+			flush();
+			try {
+				for (FileChannel channel : channels.values())
+					channel.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			channels.clear();
+		}
+	}
+}
@@ -0,0 +1,354 @@
+package com.maxgarfinkel.suffixTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A pattern of items with wildcards, searched for with
+ * {@link SuffixTree#locateMatching(WildcardPattern)}.
+ *
+ * Patterns are written in glob syntax with bounded repeats:
+ * <ul>
+ * <li><code>?</code> matches any one item.</li>
+ * <li><code>*</code> matches any run of items, including none.</li>
+ * <li><code>[abc]</code>, <code>[a-z]</code> match one of the listed
+ * characters, and <code>[!a-z]</code> or <code>[^a-z]</code> one not
+ * listed.</li>
+ * <li><code>{m}</code>, <code>{m,n}</code> and <code>{m,}</code> after
+ * any of the above except <code>*</code> repeat it at least m and at most n
+ * times, so <code>?{2,5}</code> is a gap of two to five items.</li>
+ * <li><code>\</code> matches the character after it literally.</li>
+ * </ul>
+ * Every other character matches itself.
+ *
+ * The pattern is compiled into an automaton with one state per item it
+ * reads. The tree is walked depth first in step with the set of states the
+ * automaton could be in, and a branch is left as soon as that set is empty,
+ * so only the parts of the tree which could still match are read. A match
+ * is at least one item long and never spans two sequences.
+ *
+ * @author Max Garfinkel
+ */
+public final class WildcardPattern {
+
+	/**
+	 * The most items, counting repeats, a pattern may read.
+	 */
+	static final int MAX_STATES = 4096;
+
+	private final String pattern;
+	private final Atom[] atoms;
+	private final long[] optional;
+	private final long[] loops;
+	private final int words;
+
+	private WildcardPattern(String pattern, List<Atom> atoms,
+			List<Boolean> optional, List<Boolean> loops) {
+		this.pattern = pattern;
+		this.atoms = atoms.toArray(new Atom[atoms.size()]);
+		this.words = (this.atoms.length >> 6) + 1;
+		this.optional = new long[words];
+		this.loops = new long[words];
+		for (int i = 0; i < this.atoms.length; i++) {
+			if (optional.get(i))
+				set(this.optional, i);
+			if (loops.get(i))
+				set(this.loops, i);
+		}
+	}
+
+	/**
+	 * Compiles a pattern.
+	 *
+	 * @param pattern
+	 *            The pattern, in the syntax described above.
+	 * @return The compiled pattern.
+	 * @throws IllegalArgumentException
+	 *             if the pattern is malformed or reads more than
+	 *             {@value #MAX_STATES} items.
+	 */
+	public static WildcardPattern compile(String pattern) {
+		List<Atom> atoms = new ArrayList<Atom>();
+		List<Boolean> optional = new ArrayList<Boolean>();
+		List<Boolean> loops = new ArrayList<Boolean>();
+		boolean repeatable = false;
+		int i = 0;
+		while (i < pattern.length()) {
+			char c = pattern.charAt(i++);
+			if (c == '{') {
+				if (!repeatable)
+					throw new IllegalArgumentException("Nothing to repeat at "
+							+ (i - 1) + " in " + pattern);
+				int close = pattern.indexOf('}', i);
+				if (close < 0)
+					throw new IllegalArgumentException("Unclosed repeat in "
+							+ pattern);
+				repeat(pattern, pattern.substring(i, close), atoms, optional,
+						loops);
+				i = close + 1;
+				repeatable = false;
+				continue;
+			}
+			if (c == '*') {
+				atoms.add(Atom.ANY);
+				optional.add(true);
+				loops.add(true);
+				repeatable = false;
+				continue;
+			}
+			if (c == '?') {
+				atoms.add(Atom.ANY);
+			} else if (c == '[') {
+				int close = classEnd(pattern, i);
+				atoms.add(Atom.characterClass(pattern.substring(i, close)));
+				i = close + 1;
+			} else if (c == '\\') {
+				if (i == pattern.length())
+					throw new IllegalArgumentException("Trailing escape in "
+							+ pattern);
+				atoms.add(new Atom(pattern.charAt(i++)));
+			} else {
+				atoms.add(new Atom(c));
+			}
+			optional.add(false);
+			loops.add(false);
+			repeatable = true;
+		}
+		if (atoms.size() > MAX_STATES)
+			throw new IllegalArgumentException("Pattern reads more than "
+					+ MAX_STATES + " items: " + pattern);
+		return new WildcardPattern(pattern, atoms, optional, loops);
+	}
+
+	/**
+	 * Replaces the last atom with the number of copies given by a repeat.
+	 */
+	private static void repeat(String pattern, String bounds, List<Atom> atoms,
+			List<Boolean> optional, List<Boolean> loops) {
+		int comma = bounds.indexOf(',');
+		int min;
+		int max;
+		try {
+			min = Integer.parseInt(comma < 0 ? bounds : bounds.substring(0, comma));
+			max = comma < 0 ? min : comma == bounds.length() - 1 ? -1 : Integer
+					.parseInt(bounds.substring(comma + 1));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Malformed repeat {" + bounds
+					+ "} in " + pattern);
+		}
+		if (min < 0 || max != -1 && max < min)
+			throw new IllegalArgumentException("Malformed repeat {" + bounds
+					+ "} in " + pattern);
+		long copies = max == -1 ? min + 1L : max;
+		if (atoms.size() - 1 + copies > MAX_STATES)
+			throw new IllegalArgumentException("Pattern reads more than "
+					+ MAX_STATES + " items: " + pattern);
+		int last = atoms.size() - 1;
+		Atom atom = atoms.remove(last);
+		optional.remove(last);
+		loops.remove(last);
+		for (int i = 0; i < copies; i++) {
+			atoms.add(atom);
+			optional.add(i >= min);
+			loops.add(max == -1 && i == min);
+		}
+	}
+
+	/**
+	 * @return The index of the bracket closing the class which starts at the
+	 *         given index, allowing a bracket as its first character.
+	 */
+	private static int classEnd(String pattern, int start) {
+		int i = start;
+		if (i < pattern.length() && (pattern.charAt(i) == '!' || pattern.charAt(i) == '^'))
+			i++;
+		if (i < pattern.length() && pattern.charAt(i) == ']')
+			i++;
+		int close = pattern.indexOf(']', i);
+		if (close < 0)
+			throw new IllegalArgumentException("Unclosed class in " + pattern);
+		return close;
+	}
+
+	/**
+	 * Finds the start of every match in a tree.
+	 *
+	 * @return The occurrences, unordered.
+	 */
+	<I, S extends Iterable<I>> List<Occurrence> locate(SuffixTree<I, S> tree) {
+		List<Occurrence> occurrences = new ArrayList<Occurrence>();
+		Sequence<I, S> sequence = tree.getSequence();
+		long[][] masks = new long[16][];
+		Edge<I, S>[] edges = Edge.newArray(Math.max(16, tree.getRoot()
+				.getEdgeCount()));
+		int[] depths = new int[edges.length];
+		long[][] states = new long[edges.length][];
+		long[] first = new long[words];
+		set(first, 0);
+		close(first);
+		int top = tree.getRoot().pushEdges(edges, 0);
+		for (int i = 0; i < top; i++)
+			states[i] = first.clone();
+		while (top > 0) {
+			Edge<I, S> edge = edges[--top];
+			int depth = depths[top];
+			long[] current = states[top];
+			states[top] = null;
+			boolean alive = true;
+			for (int i = 0; alive && i < edge.getLength(); i++) {
+				int code = sequence.codeAt(edge.getStart() + i);
+				if (code < 0) {
+					alive = false;
+					break;
+				}
+				if (code >= masks.length)
+					masks = Arrays.copyOf(masks, Math.max(code + 1, masks.length * 2));
+				if (masks[code] == null)
+					masks[code] = mask(sequence.decode(code));
+				alive = step(current, masks[code]);
+				if (alive && get(current, atoms.length)) {
+					tree.addLeaves(edge, depth, occurrences);
+					alive = false;
+				}
+			}
+			Node<I, S> terminal = edge.getTerminal();
+			if (!alive || terminal == null)
+				continue;
+			int count = terminal.getEdgeCount();
+			if (top + count > edges.length) {
+				int length = Math.max(edges.length * 2, top + count);
+				edges = Arrays.copyOf(edges, length);
+				depths = Arrays.copyOf(depths, length);
+				states = Arrays.copyOf(states, length);
+			}
+			int pushed = terminal.pushEdges(edges, top);
+			Arrays.fill(depths, top, pushed, depth + edge.getLength());
+			for (int i = top; i < pushed; i++)
+				states[i] = current.clone();
+			top = pushed;
+		}
+		return occurrences;
+	}
+
+	/**
+	 * @return The states whose atom matches the given item.
+	 */
+	private long[] mask(Object item) {
+		long[] mask = new long[words];
+		for (int i = 0; i < atoms.length; i++) {
+			if (atoms[i].matches(item))
+				set(mask, i);
+		}
+		return mask;
+	}
+
+	/**
+	 * Moves a set of states over an item, given the states whose atom
+	 * matches it.
+	 *
+	 * @return False if no state is left.
+	 */
+	private boolean step(long[] states, long[] mask) {
+		long carry = 0;
+		long any = 0;
+		for (int w = 0; w < words; w++) {
+			long matched = states[w] & mask[w];
+			states[w] = matched << 1 | carry | matched & loops[w];
+			carry = matched >>> 63;
+			any |= states[w];
+		}
+		if (any == 0)
+			return false;
+		close(states);
+		return true;
+	}
+
+	/**
+	 * Adds the states reached by skipping optional atoms.
+	 */
+	private void close(long[] states) {
+		for (int w = 0; w < words; w++) {
+			long skip = states[w] & optional[w];
+			while (skip != 0) {
+				int state = (w << 6) + Long.numberOfTrailingZeros(skip);
+				set(states, state + 1);
+				skip = states[w] & optional[w] & -(Long.lowestOneBit(skip) << 1);
+			}
+		}
+	}
+
+	private static void set(long[] bits, int index) {
+		bits[index >> 6] |= 1L << index;
+	}
+
+	private static boolean get(long[] bits, int index) {
+		return (bits[index >> 6] & 1L << index) != 0;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+	/**
+	 * Matches one item of a pattern.
+	 */
+	private static final class Atom {
+
+		static final Atom ANY = new Atom(null);
+
+		private final Object item;
+		private final char[] ranges;
+		private final boolean negated;
+
+		/**
+		 * @param item
+		 *            The item matched, or null for any item.
+		 */
+		Atom(Object item) {
+			this(item, null, false);
+		}
+
+		private Atom(Object item, char[] ranges, boolean negated) {
+			this.item = item;
+			this.ranges = ranges;
+			this.negated = negated;
+		}
+
+		/**
+		 * @param body
+		 *            The text between the brackets of a class.
+		 */
+		static Atom characterClass(String body) {
+			boolean negated = body.length() > 0
+					&& (body.charAt(0) == '!' || body.charAt(0) == '^');
+			int i = negated ? 1 : 0;
+			StringBuilder ranges = new StringBuilder();
+			while (i < body.length()) {
+				char low = body.charAt(i);
+				char high = low;
+				if (i + 2 < body.length() && body.charAt(i + 1) == '-') {
+					high = body.charAt(i + 2);
+					i += 3;
+				} else {
+					i++;
+				}
+				ranges.append(low).append(high);
+			}
+			return new Atom(null, ranges.toString().toCharArray(), negated);
+		}
+
+		boolean matches(Object candidate) {
+			if (ranges == null)
+				return item == null || item.equals(candidate);
+			if (!(candidate instanceof Character))
+				return false;
+			char c = (Character) candidate;
+			boolean listed = false;
+			for (int i = 0; i < ranges.length && !listed; i += 2)
+				listed = ranges[i] <= c && c <= ranges[i + 1];
+			return listed != negated;
+		}
+	}
+}
@@ -5,23 +5,41 @@ import java.util.Iterator;
 
 public class Word implements Iterable<Character> {
 
-	char[] word;
+	final char[] word;
+	private final int hash;
 	
 	Word(String word){
-		this.word = word.toCharArray();
+		this(word.toCharArray());
 	}
 	
+	/**
+	 * Creates a word from a range of characters, which are copied.
+	 * 
+	 * @param characters
+	 *            The characters.
+	 * @param from
+	 *            The position of the first character of the word.
+	 * @param to
+	 *            The position after the last character of the word.
+	 */
+	Word(char[] characters, int from, int to){
+		this(Arrays.copyOfRange(characters, from, to));
+	}
 	
+	private Word(char[] word){
+		this.word = word;
+		final int prime = 31;
+		hash = prime + Arrays.hashCode(word);
+	}
 	
 	/* (non-Javadoc)
+	 * The hash is computed once, as words are hashed every time their
+	 * terminals are looked up.
 	 * @see java.lang.Object#hashCode()
 	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.hashCode(word);
-		return result;
+		return hash;
 	}
 
 
@@ -38,6 +56,8 @@ public class Word implements Iterable<Character> {
 		if (getClass() != obj.getClass())
 			return false;
 		Word other = (Word) obj;
+		if (hash != other.hash)
+			return false;
 		if (!Arrays.equals(word, other.word))
 			return false;
 		return true;
@@ -1,19 +1,119 @@
 package com.maxgarfinkel.suffixTree;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Interns {@link Word}s and gives each distinct word a dense, non negative
+ * id, so that text can be indexed as token ids by an {@link IntSuffixTree}.
+ * 
+ * The cache may be shared by any number of threads. Looking up a word already
+ * held takes no lock, and only assigning a new id is synchronized. The number
+ * of words held is bounded, as ids are never reused and a vocabulary which
+ * keeps growing is usually a sign of unsuitable tokens.
+ * 
+ * @author Max Garfinkel
+ */
 public class WordCache {
 
-	Map<Word,Word> cache = new HashMap<Word, Word>();
-	
-	Word get(Word word){
-		if(cache.containsKey(word))
-			return cache.get(word);
-		else{
-			cache.put(word, word);
-			return word;
+	/**
+	 * The id returned by {@link #lookup(Word)} for a word which is not held.
+	 */
+	public static final int NONE = -1;
+
+	private final ConcurrentMap<Word, Integer> ids;
+	private final int capacity;
+	private volatile Word[] words = new Word[64];
+	private int size = 0;
+
+	/**
+	 * Creates a cache holding up to 2<sup>20</sup> words.
+	 */
+	public WordCache() {
+		this(1 << 20);
+	}
+
+	/**
+	 * Creates a cache holding up to the given number of words.
+	 * 
+	 * @param capacity
+	 *            The greatest number of distinct words.
+	 */
+	public WordCache(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive.");
+		this.capacity = capacity;
+		ids = new ConcurrentHashMap<Word, Integer>(Math.min(capacity, 1024));
+	}
+
+	/**
+	 * Retrieves the instance held for a word equal to the given one, adding
+	 * the word if none is held yet.
+	 * 
+	 * @param word
+	 *            The word to intern.
+	 * @return The held instance.
+	 * @throws IllegalStateException
+	 *             if the word is new and the cache is full.
+	 */
+	Word get(Word word) {
+		return word(id(word));
+	}
+
+	/**
+	 * Retrieves the id of a word, assigning the next id if the word is new.
+	 * 
+	 * @param word
+	 *            The word.
+	 * @return Its id.
+	 * @throws IllegalStateException
+	 *             if the word is new and the cache is full.
+	 */
+	public int id(Word word) {
+		Integer id = ids.get(word);
+		if (id != null)
+			return id;
+		synchronized (this) {
+			id = ids.get(word);
+			if (id != null)
+				return id;
+			if (size == capacity)
+				throw new IllegalStateException("The cache is full, it holds "
+						+ capacity + " words.");
+			if (size == words.length)
+				words = Arrays.copyOf(words, Math.min(capacity, size * 2));
+			words[size] = word;
+			ids.put(word, size);
+			return size++;
 		}
 	}
-	
+
+	/**
+	 * Retrieves the id of a word without assigning one.
+	 * 
+	 * @param word
+	 *            The word.
+	 * @return Its id, or {@link #NONE} if the word is not held.
+	 */
+	public int lookup(Word word) {
+		Integer id = ids.get(word);
+		return id == null ? NONE : id;
+	}
+
+	/**
+	 * @param id
+	 *            An id returned by {@link #id(Word)}.
+	 * @return The word with the id.
+	 */
+	public Word word(int id) {
+		return words[id];
+	}
+
+	/**
+	 * @return The number of words held.
+	 */
+	public int size() {
+		return ids.size();
+	}
 }
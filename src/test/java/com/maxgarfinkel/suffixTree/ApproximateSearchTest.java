@@ -0,0 +1,113 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.maxgarfinkel.suffixTree.ApproximateSearch.Distance;
+
+public class ApproximateSearchTest {
+
+	@Test
+	public void findsMatchesWithinTheErrorBudget() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.add(new Word("the quick brown fox"));
+		tree.add(new Word("the quack brawn fix"));
+
+		List<ApproximateMatch> hamming = new ApproximateSearch<Character, Word>(
+				Distance.HAMMING, 1, 100).search(tree, new Word("quick"));
+		List<ApproximateMatch> expected = new ArrayList<ApproximateMatch>();
+		expected.add(new ApproximateMatch(0, 4, 5, 0));
+		expected.add(new ApproximateMatch(1, 4, 5, 1));
+		assertThat(hamming, is(expected));
+
+		List<ApproximateMatch> levenshtein = new ApproximateSearch<Character, Word>(
+				Distance.LEVENSHTEIN, 1, 100).search(tree, new Word("brwn"));
+		assertThat(levenshtein.contains(new ApproximateMatch(0, 10, 5, 1)), is(true));
+		assertThat(levenshtein.contains(new ApproximateMatch(1, 10, 5, 1)), is(true));
+	}
+
+	@Test
+	public void resultsAreCapped() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("aaaaaaaaaaaaaaaaaaaa"));
+		List<ApproximateMatch> matches = new ApproximateSearch<Character, Word>(
+				Distance.HAMMING, 0, 7).search(tree, new Word("aaa"));
+		assertThat(matches.size(), is(7));
+	}
+
+	@Test
+	public void matchesAgreeWithBruteForce() {
+		TestUtils.checkRandomTrees(11, 100, 3, 30, "abc", 4, 5,
+				new TestUtils.RandomCheck() {
+					void check(String pattern) {
+						int errors = random.nextInt(3);
+						for (Distance distance : Distance.values()) {
+							List<ApproximateMatch> matches = new ApproximateSearch<Character, Word>(
+									distance, errors, Integer.MAX_VALUE).search(tree,
+									new Word(pattern));
+							assertThat(pattern, matches, is(bruteForce(texts,
+									pattern, errors, distance)));
+						}
+					}
+				});
+	}
+
+	private static List<ApproximateMatch> bruteForce(List<String> texts,
+			String pattern, int errors, Distance distance) {
+		List<ApproximateMatch> matches = new ArrayList<ApproximateMatch>();
+		for (int id = 0; id < texts.size(); id++) {
+			String text = texts.get(id);
+			if (texts.indexOf(text) != id)
+				continue;
+			for (int start = 0; start < text.length(); start++) {
+				if (distance == Distance.HAMMING) {
+					if (start + pattern.length() > text.length())
+						continue;
+					int mismatches = 0;
+					for (int i = 0; i < pattern.length(); i++) {
+						if (text.charAt(start + i) != pattern.charAt(i))
+							mismatches++;
+					}
+					if (mismatches <= errors)
+						matches.add(new ApproximateMatch(id, start, pattern.length(),
+								mismatches));
+					continue;
+				}
+				int best = Integer.MAX_VALUE;
+				int bestLength = 0;
+				for (int end = start; end <= text.length(); end++) {
+					int cost = editDistance(pattern, text.substring(start, end));
+					if (cost < best) {
+						best = cost;
+						bestLength = end - start;
+					}
+				}
+				if (best <= errors)
+					matches.add(new ApproximateMatch(id, start, bestLength, best));
+			}
+		}
+		return matches;
+	}
+
+	private static int editDistance(String a, String b) {
+		int[][] costs = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			for (int j = 0; j <= b.length(); j++) {
+				if (i == 0 || j == 0) {
+					costs[i][j] = i + j;
+					continue;
+				}
+				int cost = costs[i - 1][j - 1]
+						+ (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				cost = Math.min(cost, costs[i - 1][j] + 1);
+				costs[i][j] = Math.min(cost, costs[i][j - 1] + 1);
+			}
+		}
+		return costs[a.length()][b.length()];
+	}
+}
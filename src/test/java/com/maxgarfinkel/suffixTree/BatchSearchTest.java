@@ -0,0 +1,57 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BatchSearchTest {
+
+	@Test
+	public void resultsAreReturnedInInputOrder() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("banana"));
+		tree.add(new Word("bandana"));
+		BatchSearch<Character, Word> search = new BatchSearch<Character, Word>(
+				tree);
+		List<Word> patterns = Arrays.asList(new Word("ana"), new Word("x"),
+				new Word("an"), new Word("band"), new Word(""), new Word("anx"),
+				new Word("ana"));
+		assertThat(search.countOccurrences(patterns), is(new int[] { 3, 0, 4, 1,
+				0, 0, 3 }));
+		assertThat(search.countSequencesContaining(patterns), is(new int[] { 2,
+				0, 2, 1, 0, 0, 2 }));
+		assertThat(search.contains(patterns), is(new boolean[] { true, false,
+				true, true, true, false, true }));
+	}
+
+	@Test
+	public void batchAgreesWithSingleSearches() {
+		TestUtils.checkRandomTrees(5, 10, 10, 50, "abc", 400, 6,
+				new TestUtils.RandomCheck() {
+					void check(List<String> patterns) {
+						List<Word> words = new ArrayList<Word>();
+						for (String pattern : patterns)
+							words.add(new Word(pattern));
+						BatchSearch<Character, Word> search = new BatchSearch<Character, Word>(
+								tree);
+						int[] occurrences = search.countOccurrences(words);
+						int[] sequences = search.countSequencesContaining(words);
+						boolean[] contains = search.contains(words);
+						for (int i = 0; i < words.size(); i++) {
+							Word word = words.get(i);
+							assertThat(word.toString(), occurrences[i],
+									is(tree.countOccurrences(word)));
+							assertThat(word.toString(), sequences[i],
+									is(tree.countSequencesContaining(word)));
+							assertThat(word.toString(), contains[i],
+									is(tree.contains(word)));
+						}
+					}
+				});
+	}
+}
@@ -0,0 +1,128 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class BuildStatisticsTest {
+
+	@Test
+	public void countsTheWorkOfEachSequence() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		assertThat(tree.getBuildStatistics(), is(nullValue()));
+		final List<Integer> ids = new ArrayList<Integer>();
+		final List<BuildStatistics> annotations = new ArrayList<BuildStatistics>();
+		tree.setBuildListener(new BuildListener() {
+			public void sequenceAdded(int sequenceId, BuildStatistics statistics) {
+				ids.add(sequenceId);
+			}
+
+			public void annotated(BuildStatistics statistics) {
+				annotations.add(statistics);
+			}
+		});
+
+		tree.add(new Word("banana"));
+		BuildStatistics statistics = tree.getBuildStatistics();
+		assertThat(statistics.getItems(), is(7L));
+		assertThat(statistics.getLeavesCreated(), is(7L));
+		assertThat(statistics.getEdgeSplits(), is(3L));
+		assertThat(statistics.getMaxRemainder(), is(4));
+
+		tree.openSequence();
+		tree.appendAll(new Word("nab"));
+		tree.closeSequence();
+		assertThat(ids, is(Arrays.asList(0, 1)));
+		assertThat(tree.getBuildStatistics().getItems(), is(11L));
+
+		assertThat(annotations.size(), is(0));
+		tree.countOccurrences(new Word("a"));
+		tree.countOccurrences(new Word("n"));
+		assertThat(annotations.size(), is(1));
+
+		tree.setBuildListener(null);
+		tree.add(new Word("x"));
+		assertThat(tree.getBuildStatistics(), is(nullValue()));
+	}
+
+	@Test
+	public void leavesAndSplitsMatchTheTree() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.setBuildListener(new BuildMonitor());
+		tree.add(new Word("mississippi"));
+		tree.add(new Word("missouri"));
+		tree.add(new Word("sip"));
+		BuildStatistics statistics = tree.getBuildStatistics();
+		int[] counts = new int[2];
+		count(tree.getRoot(), counts);
+		assertThat(statistics.getLeavesCreated(), is((long) counts[0]));
+		assertThat(statistics.getEdgeSplits(), is((long) counts[1]));
+		assertThat(statistics.getItems(), is(12L + 9L + 4L));
+	}
+
+	@Test
+	public void countsSuffixLinksAndWalkDowns() {
+		// The d of abcabxabcd splits abc then bc then c, following the link
+		// from ab to b on the way, and no edge is shorter than what remains.
+		BuildStatistics statistics = statistics("abcabxabcd");
+		assertThat(statistics.getEdgeSplits(), is(5L));
+		assertThat(statistics.getSuffixLinksFollowed(), is(1L));
+		assertThat(statistics.getWalkDownSteps(), is(0L));
+
+		// The terminal of baaabaa splits baa, leaving aa to be found from the
+		// root, whose a edge is one item long so is walked down once, then the
+		// link from aa to a is followed.
+		statistics = statistics("baaabaa");
+		assertThat(statistics.getEdgeSplits(), is(3L));
+		assertThat(statistics.getSuffixLinksFollowed(), is(1L));
+		assertThat(statistics.getWalkDownSteps(), is(1L));
+	}
+
+	@Test
+	public void monitorIsPublishedOverJmx() throws Exception {
+		BuildMonitor monitor = new BuildMonitor();
+		ObjectName name = new ObjectName(
+				"com.maxgarfinkel.suffixTree:type=Build,name=BuildStatisticsTest");
+		monitor.register(name);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+			tree.setBuildListener(monitor);
+			tree.add(new Word("banana"));
+			tree.add(new Word("bandana"));
+			assertThat((Long) server.getAttribute(name, "Items"), is(15L));
+			assertThat((Long) server.getAttribute(name, "SequencesAdded"), is(2L));
+			assertThat(monitor.getStatistics().getItems(), is(15L));
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+
+	private static BuildStatistics statistics(String text) {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.setBuildListener(new BuildMonitor());
+		tree.add(new Word(text));
+		return tree.getBuildStatistics();
+	}
+
+	private static void count(Node<Character, Word> node, int[] counts) {
+		for (Edge<Character, Word> edge : node) {
+			if (edge.getTerminal() == null) {
+				counts[0]++;
+			} else {
+				counts[1]++;
+				count(edge.getTerminal(), counts);
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class EnhancedSuffixArrayTest {
+
+	@Test
+	public void suffixArrayIsSorted() {
+		Random random = new Random(3);
+		for (int round = 0; round < 50; round++) {
+			int n = 1 + random.nextInt(200);
+			int alphabet = 2 + random.nextInt(4);
+			int[] text = new int[n];
+			for (int i = 0; i < n - 1; i++)
+				text[i] = 1 + random.nextInt(alphabet - 1);
+			int[] suffixes = new int[n];
+			EnhancedSuffixArray.sais(text, suffixes, n, alphabet);
+			Integer[] expected = new Integer[n];
+			for (int i = 0; i < n; i++)
+				expected[i] = i;
+			final int[] t = text;
+			Arrays.sort(expected, new java.util.Comparator<Integer>() {
+				public int compare(Integer a, Integer b) {
+					for (int i = 0;; i++) {
+						if (t[a + i] != t[b + i])
+							return t[a + i] - t[b + i];
+					}
+				}
+			});
+			for (int i = 0; i < n; i++)
+				assertThat(suffixes[i], is((int) expected[i]));
+		}
+	}
+
+	@Test
+	public void queriesAgreeWithTheTree() {
+		TestUtils.checkRandomTrees(9, 40, 6, 300, "ab", 40, 8,
+				new TestUtils.RandomCheck() {
+					EnhancedSuffixArray<Character, Word> index;
+
+					void check(List<String> patterns) {
+						List<Word> words = new ArrayList<Word>();
+						for (String text : texts)
+							words.add(new Word(text));
+						index = new EnhancedSuffixArray<Character, Word>(words);
+						assertThat(index.getSequenceCount(), is(texts.size()));
+						super.check(patterns);
+					}
+
+					void check(String pattern) {
+						Word word = new Word(pattern);
+						assertThat(pattern, index.contains(word),
+								is(tree.contains(word)));
+						assertThat(pattern, index.countOccurrences(word),
+								is(tree.countOccurrences(word)));
+						assertThat(pattern, index.countSequencesContaining(word),
+								is(tree.countSequencesContaining(word)));
+						assertThat(pattern, index.locate(word),
+								is(tree.locate(word)));
+
+						Cursor<Character, Word> expected = new Cursor<Character, Word>(
+								tree);
+						IntervalCursor<Character, Word> cursor = new IntervalCursor<Character, Word>(
+								index);
+						for (int i = 0; i < pattern.length(); i++) {
+							boolean moved = expected.proceedTo(pattern.charAt(i));
+							assertThat(pattern, cursor.proceedTo(pattern.charAt(i)),
+									is(moved));
+							if (!moved)
+								break;
+							assertThat(pattern, cursor.getSequenceIds().length,
+									is(tree.countSequencesContaining(new Word(pattern
+											.substring(0, i + 1)))));
+						}
+						cursor.returnToRoot();
+						assertThat(cursor.getLength(), is(0));
+					}
+				});
+	}
+
+	@Test
+	public void textIsHeldInTheNarrowestWidth() {
+		assertThat(indexOfDistinctItems(200).getTextWidth(), is(1));
+		assertThat(indexOfDistinctItems(300).getTextWidth(), is(2));
+		EnhancedSuffixArray<Integer, List<Integer>> index = indexOfDistinctItems(70000);
+		assertThat(index.getTextWidth(), is(4));
+		assertThat(index.locate(Arrays.asList(69998, 69999)),
+				is(Arrays.asList(new Occurrence(1, 69998 - 35000))));
+		assertThat(index.contains(Arrays.asList(34999, 35000)), is(false));
+	}
+
+	/**
+	 * Indexes the given number of distinct items, split between two
+	 * sequences.
+	 */
+	private static EnhancedSuffixArray<Integer, List<Integer>> indexOfDistinctItems(
+			int count) {
+		List<Integer> first = new ArrayList<Integer>();
+		List<Integer> second = new ArrayList<Integer>();
+		for (int i = 0; i < count; i++)
+			(i < count / 2 ? first : second).add(i);
+		EnhancedSuffixArray<Integer, List<Integer>> index = new EnhancedSuffixArray<Integer, List<Integer>>(
+				Arrays.asList(first, second));
+		assertThat(index.countOccurrences(Arrays.asList(count - 1)), is(1));
+		return index;
+	}
+
+	@Test
+	public void emptyIndexContainsOnlyTheEmptyPattern() {
+		EnhancedSuffixArray<Character, Word> index = new EnhancedSuffixArray<Character, Word>(
+				new ArrayList<Word>());
+		assertThat(index.contains(new Word("")), is(true));
+		assertThat(index.contains(new Word("a")), is(false));
+		assertThat(index.countOccurrences(new Word("")), is(0));
+	}
+}
@@ -0,0 +1,94 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class FrozenSuffixTreeTest {
+
+	@Test
+	public void frozenTreeAnswersLikeTheOriginal() {
+		TestUtils.checkRandomTrees(9, 10, 12, 40, "abc", 100, 6,
+				new TestUtils.RandomCheck() {
+					FrozenSuffixTree<Character, Word> frozen;
+
+					void check(List<String> patterns) {
+						frozen = tree.freeze();
+						assertThat(frozen.getSequenceCount(), is(texts.size()));
+						super.check(patterns);
+					}
+
+					void check(String pattern) {
+						Word word = new Word(pattern);
+						assertThat(pattern, frozen.contains(word),
+								is(tree.contains(word)));
+						assertThat(pattern, frozen.countOccurrences(word),
+								is(tree.countOccurrences(word)));
+						assertThat(pattern, frozen.countSequencesContaining(word),
+								is(tree.countSequencesContaining(word)));
+						assertThat(pattern, frozen.locate(word),
+								is(tree.locate(word)));
+					}
+				});
+	}
+
+	@Test
+	public void frozenTreeIsUnaffectedByLaterAdds() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("banana"));
+		FrozenSuffixTree<Character, Word> frozen = tree.freeze();
+		tree.add(new Word("ananas"));
+		assertThat(frozen.countOccurrences(new Word("ana")), is(2));
+		assertThat(frozen.contains(new Word("nas")), is(false));
+		assertThat(tree.countOccurrences(new Word("ana")), is(4));
+	}
+
+	@Test
+	public void frozenTreeCanBeQueriedFromManyThreads() throws Exception {
+		Random random = new Random(13);
+		SuffixTree<Character, Word> tree = randomTree(random);
+		final FrozenSuffixTree<Character, Word> frozen = tree.freeze();
+		final List<Word> patterns = new ArrayList<Word>();
+		final int[] expected = new int[200];
+		for (int i = 0; i < expected.length; i++) {
+			patterns.add(new Word(TestUtils.randomString(random,
+					1 + random.nextInt(4), "abc")));
+			expected[i] = tree.countOccurrences(patterns.get(i));
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (int t = 0; t < 8; t++) {
+			results.add(executor.submit(new Callable<Boolean>() {
+				public Boolean call() {
+					for (int round = 0; round < 50; round++) {
+						for (int i = 0; i < expected.length; i++) {
+							if (frozen.countOccurrences(patterns.get(i)) != expected[i])
+								return false;
+						}
+					}
+					return true;
+				}
+			}));
+		}
+		for (Future<Boolean> result : results)
+			assertThat(result.get(), is(true));
+		executor.shutdown();
+	}
+
+	private static SuffixTree<Character, Word> randomTree(Random random) {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		for (int i = 0; i < 12; i++)
+			tree.add(new Word(TestUtils.randomString(random,
+					10 + random.nextInt(30), "abc")));
+		return tree;
+	}
+}
@@ -0,0 +1,49 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class MatchingStatisticsTest {
+
+	@Test
+	public void lengthsAreTheLongestMatchAtEachPosition() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("mississippi"));
+		assertThat(statistics(tree, "sissyx"), is(new int[] { 4, 3, 2, 1, 0, 0 }));
+		assertThat(statistics(tree, ""), is(new int[0]));
+		assertThat(statistics(tree, "ppim"), is(new int[] { 3, 2, 1, 1 }));
+	}
+
+	@Test
+	public void lengthsAgreeWithBruteForceOnRandomQueries() {
+		TestUtils.checkRandomTrees(5, 50, 3, 40, "abc", 2, 60,
+				new TestUtils.RandomCheck() {
+					void check(String query) {
+						int[] lengths = statistics(tree, query);
+						assertThat(lengths.length, is(query.length()));
+						for (int i = 0; i < query.length(); i++) {
+							int longest = 0;
+							for (int j = i + 1; j <= query.length(); j++) {
+								for (String text : texts) {
+									if (text.contains(query.substring(i, j)))
+										longest = j - i;
+								}
+							}
+							assertThat(query, lengths[i], is(longest));
+						}
+					}
+				});
+	}
+
+	private static int[] statistics(SuffixTree<Character, Word> tree, String query) {
+		MatchingStatistics<Character, Word> statistics = tree
+				.matchingStatistics(new Word(query).iterator());
+		int[] lengths = new int[query.length()];
+		int count = 0;
+		while (statistics.hasNext())
+			lengths[count++] = statistics.nextLength();
+		return lengths;
+	}
+}
@@ -0,0 +1,93 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MemoryReportTest {
+
+	@Test
+	public void countsNodesLeavesAndEdges() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("banana"));
+		MemoryReport report = tree.memoryReport();
+		assertThat(report.getNodeCount(), is(4));
+		assertThat(report.getInternalNodeCount(), is(3));
+		assertThat(report.getLeafCount(), is(7));
+		assertThat(report.getEdgeCount(), is(10));
+		assertThat(report.getItemCount(), is(7L));
+		assertThat(report.getNodeBytes(), is(4 * MemoryReport.NODE));
+		assertThat(report.getEdgeBytes(), is(10 * MemoryReport.EDGE));
+		assertThat(report.getSequenceBytes() > Sequence.PAGE_SIZE * 4, is(true));
+		assertThat(report.getTotalBytes(), is(report.getNodeBytes()
+				+ report.getEdgeBytes() + report.getChildMapBytes()
+				+ report.getTerminalSetBytes() + report.getSequenceBytes()
+				+ report.getSymbolBytes()));
+		assertThat(report.getBytesPerItem(), is(report.getTotalBytes() / 7.0));
+	}
+
+	@Test
+	public void emptyTreeHasOnlyTheRoot() {
+		MemoryReport report = new SuffixTree<Character, Word>().memoryReport();
+		assertThat(report.getNodeCount(), is(1));
+		assertThat(report.getLeafCount(), is(0));
+		assertThat(report.getBytesPerItem(), is(0.0));
+	}
+
+	@Test
+	public void emptyMapHasNoTable() {
+		long map = MemoryReport.hashMap(0);
+		assertThat(map, is(MemoryReport.align(MemoryReport.HEADER + 4
+				* MemoryReport.REFERENCE + 3 * 4 + 4)));
+		assertThat(MemoryReport.hashMap(1), is(map
+				+ MemoryReport.array(16, MemoryReport.REFERENCE)
+				+ MemoryReport.align(MemoryReport.HEADER + 4 + 3
+						* MemoryReport.REFERENCE)));
+	}
+
+	@Test
+	public void countsAgreeWithTheTree() {
+		Random random = new Random(23);
+		for (int round = 0; round < 30; round++) {
+			SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+			int count = 1 + random.nextInt(5);
+			int alphabet = 2 + random.nextInt(20);
+			for (int i = 0; i < count; i++) {
+				StringBuilder text = new StringBuilder();
+				int length = 1 + random.nextInt(200);
+				for (int j = 0; j < length; j++)
+					text.append((char) ('a' + random.nextInt(alphabet)));
+				tree.add(new Word(text.toString()));
+			}
+			if (count > 1 && random.nextBoolean())
+				tree.removeOldest();
+			int[] counts = new int[3];
+			count(tree.getRoot(), counts);
+			MemoryReport report = tree.memoryReport();
+			assertThat(report.getNodeCount(), is(counts[0]));
+			assertThat(report.getLeafCount(), is(counts[1]));
+			assertThat(report.getChildMapBytes() > 0, is(counts[2] > 0));
+			assertThat(report.getItemCount(), is((long) tree
+					.getSuffixArrayLength()));
+		}
+	}
+
+	/**
+	 * Counts the nodes, leaves and nodes with more than two children below a
+	 * node, including the node itself.
+	 */
+	private static void count(Node<Character, Word> node, int[] counts) {
+		counts[0]++;
+		if (node.getEdgeCount() > 2)
+			counts[2]++;
+		for (Edge<Character, Word> edge : node) {
+			if (edge.getTerminal() == null)
+				counts[1]++;
+			else
+				count(edge.getTerminal(), counts);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class NodeTest {
+
+	private static final String ITEMS = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+	@Test
+	public void childrenAreFoundAsANodeGrowsAndShrinks() {
+		Word word = new Word(ITEMS);
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(word);
+		Sequence<Character, Word> sequence = tree.getSequence();
+		Node<Character, Word> node = new Node<Character, Word>(null, sequence,
+				tree);
+		for (int i = 0; i < ITEMS.length(); i++) {
+			node.insert(new Edge<Character, Word>(i, node, sequence, tree));
+			assertThat(node.getEdgeCount(), is(i + 1));
+			assertChildren(node, 0, i + 1);
+		}
+		for (int i = 0; i < ITEMS.length(); i++) {
+			node.remove(node.getEdgeStarting(ITEMS.charAt(i)));
+			assertThat(node.getEdgeCount(), is(ITEMS.length() - i - 1));
+			assertThat(node.getEdgeStarting(ITEMS.charAt(i)), is(nullValue()));
+			assertChildren(node, i + 1, ITEMS.length());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void secondChildStartingWithTheSameItemIsRejected() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("abca"));
+		Sequence<Character, Word> sequence = tree.getSequence();
+		Node<Character, Word> node = new Node<Character, Word>(null, sequence,
+				tree);
+		node.insert(new Edge<Character, Word>(0, node, sequence, tree));
+		node.insert(new Edge<Character, Word>(3, node, sequence, tree));
+	}
+
+	@Test
+	public void nodesWithoutTerminalLeavesReportNone() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("abab"));
+		Node<Character, Word> node = tree.getRoot().getEdgeStarting('a')
+				.getTerminal();
+		assertThat(node.getSuffixTerminals().isEmpty(), is(true));
+		assertThat(tree.getRoot().getSuffixTerminals().size(), is(1));
+	}
+
+	private static void assertChildren(Node<Character, Word> node, int from,
+			int to) {
+		Set<Character> seen = new HashSet<Character>();
+		for (Edge<Character, Word> edge : node)
+			seen.add(edge.getStartItem());
+		assertThat(seen.size(), is(to - from));
+		for (int i = from; i < to; i++) {
+			char item = ITEMS.charAt(i);
+			assertThat(node.getEdgeStarting(item).getStartItem(), is(item));
+		}
+	}
+}
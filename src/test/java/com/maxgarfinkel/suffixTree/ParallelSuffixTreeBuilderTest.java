@@ -0,0 +1,59 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ParallelSuffixTreeBuilderTest {
+
+	@Test
+	public void parallelTreeAnswersLikeASequentialTree() {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		TestUtils.checkRandomTrees(17, 6, 200, 40, "abc", 100, 6,
+				new TestUtils.RandomCheck() {
+					SuffixTree<Character, Word> parallel;
+
+					/**
+					 * Builds the first half of the texts in parallel and adds
+					 * the rest one at a time.
+					 */
+					void check(List<String> patterns) {
+						int built = (texts.size() + 1) / 2;
+						List<Word> words = new ArrayList<Word>();
+						for (String text : texts.subList(0, built))
+							words.add(new Word(text));
+						parallel = new ParallelSuffixTreeBuilder<Character, Word>(
+								pool).build(words);
+						for (String text : texts.subList(built, texts.size()))
+							parallel.add(new Word(text));
+						assertThat(countNodes(parallel), is(countNodes(tree)));
+						super.check(patterns);
+					}
+
+					void check(String pattern) {
+						Word word = new Word(pattern);
+						assertThat(pattern, parallel.locate(word),
+								is(TestUtils.occurrences(texts, pattern)));
+						assertThat(pattern, parallel.countSequencesContaining(word),
+								is(tree.countSequencesContaining(word)));
+					}
+				});
+	}
+
+	private static int countNodes(SuffixTree<Character, Word> tree) {
+		List<Node<Character, Word>> nodes = new ArrayList<Node<Character, Word>>();
+		nodes.add(tree.getRoot());
+		for (int i = 0; i < nodes.size(); i++) {
+			for (Edge<Character, Word> edge : nodes.get(i)) {
+				if (edge.isTerminating())
+					nodes.add(edge.getTerminal());
+			}
+		}
+		return nodes.size();
+	}
+}
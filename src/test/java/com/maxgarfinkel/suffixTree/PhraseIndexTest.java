@@ -0,0 +1,76 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class PhraseIndexTest {
+
+	@Test
+	public void tokensAreFoldedAndSplitOnAnythingButLettersAndDigits() {
+		Tokenizer tokenizer = new Tokenizer(new WordCache());
+		int[] ids = tokenizer.tokenize("The cat, the HAT -- and 2 cats.");
+		assertThat(ids.length, is(7));
+		assertThat(ids[0], is(ids[2]));
+		assertThat(ids[1] == ids[6], is(false));
+		assertThat(tokenizer.getCache().word(ids[3]).toString(), is("hat"));
+		assertThat(tokenizer.lookup("the dog") == null, is(true));
+		assertThat(tokenizer.getCache().size(), is(6));
+	}
+
+	@Test
+	public void phrasesAreFoundWordByWord() {
+		PhraseIndex index = new PhraseIndex();
+		index.add("The quick brown fox jumps over the lazy dog.");
+		index.add("A quick brown dog outpaces a lazy fox.");
+		index.add("Brownies are quick to make.");
+
+		assertThat(index.contains("quick brown"), is(true));
+		assertThat(index.contains("QUICK, brown!"), is(true));
+		assertThat(index.contains("the lazy dog"), is(true));
+		assertThat(index.contains("quick bro"), is(false));
+		assertThat(index.contains("brown fox jumps under"), is(false));
+		assertThat(index.documentsContaining("quick brown"), is(new int[] { 0, 1 }));
+		assertThat(index.documentsContaining("lazy fox"), is(new int[] { 1 }));
+		assertThat(index.documentsContaining("quick"), is(new int[] { 0, 1, 2 }));
+		assertThat(index.documentsContaining("slow"), is(new int[0]));
+		assertThat(index.getDocumentCount(), is(3));
+	}
+
+	@Test
+	public void threadsSharingACacheAgreeOnIds() throws Exception {
+		final WordCache cache = new WordCache();
+		final String text = "to be or not to be that is the question whether tis nobler";
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+		for (int i = 0; i < 16; i++) {
+			results.add(executor.submit(new Callable<int[]>() {
+				public int[] call() {
+					return new Tokenizer(cache).tokenize(text);
+				}
+			}));
+		}
+		int[] first = results.get(0).get();
+		for (Future<int[]> result : results)
+			assertThat(result.get(), is(first));
+		executor.shutdown();
+		assertThat(cache.size(), is(11));
+		for (int i = 0; i < cache.size(); i++)
+			assertThat(cache.id(cache.word(i)), is(i));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void aFullCacheRefusesNewWords() {
+		Tokenizer tokenizer = new Tokenizer(new WordCache(3));
+		tokenizer.tokenize("one two three one");
+		tokenizer.tokenize("four");
+	}
+}
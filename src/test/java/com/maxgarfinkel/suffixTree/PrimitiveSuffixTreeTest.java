@@ -0,0 +1,310 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PrimitiveSuffixTreeTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void charTreeContainsEverySubstring() {
+		String text = "mississippi";
+		CharSuffixTree tree = new CharSuffixTree(text);
+		for (int i = 0; i < text.length(); i++) {
+			for (int j = i + 1; j <= text.length(); j++)
+				assertThat(tree.contains(text.substring(i, j)), is(true));
+		}
+		assertThat(tree.contains("ssp"), is(false));
+		assertThat(tree.contains("mississippis"), is(false));
+		assertThat(tree.contains(""), is(true));
+	}
+
+	@Test
+	public void charTreeAgreesWithBruteForceOnRandomSequences() {
+		Random random = new Random(42);
+		List<String> sequences = new ArrayList<String>();
+		CharSuffixTree tree = new CharSuffixTree();
+		for (int i = 0; i < 20; i++) {
+			String sequence = TestUtils.randomString(random,
+					1 + random.nextInt(60), "abc");
+			sequences.add(sequence);
+			assertThat(tree.add(sequence), is(i));
+		}
+		for (int i = 0; i < 500; i++) {
+			String pattern = TestUtils.randomString(random,
+					1 + random.nextInt(6), "abcd");
+			assertThat(pattern, tree.sequencesContaining(pattern),
+					is(TestUtils.sequencesContaining(sequences, pattern)));
+			assertThat(tree.contains(pattern),
+					is(TestUtils.sequencesContaining(sequences, pattern).length > 0));
+		}
+	}
+
+	@Test
+	public void charTreeHandlesRepetitiveSequences() {
+		char[] chars = new char[50000];
+		Arrays.fill(chars, 'o');
+		CharSuffixTree tree = new CharSuffixTree();
+		tree.add(chars);
+		tree.add("oooxooo");
+		assertThat(tree.contains(new String(chars)), is(true));
+		assertThat(tree.sequencesContaining("ooo"), is(new int[] { 0, 1 }));
+		assertThat(tree.sequencesContaining("ox"), is(new int[] { 1 }));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void charTreeRejectsReservedTerminal() {
+		new CharSuffixTree("ab\uFFFF");
+	}
+
+	@Test
+	public void charTreeIsUsableAfterRejectingASequence() {
+		CharSuffixTree tree = new CharSuffixTree("abc");
+		try {
+			tree.add("x\uFFFF");
+		} catch (IllegalArgumentException e) {
+		}
+		tree.add("xyz");
+		assertThat(tree.sequencesContaining("x"), is(new int[] { 1 }));
+		assertThat(tree.contains("cx"), is(false));
+	}
+
+	@Test
+	public void byteTreeUsesEveryByteValue() {
+		byte[] first = new byte[256];
+		for (int i = 0; i < first.length; i++)
+			first[i] = (byte) i;
+		byte[] second = new byte[] { 0, 0, -1, 0 };
+		ByteSuffixTree tree = new ByteSuffixTree(first);
+		tree.add(second);
+		assertThat(tree.contains(new byte[] { -2, -1 }), is(true));
+		assertThat(tree.sequencesContaining(new byte[] { 0 }), is(new int[] {
+				0, 1 }));
+		assertThat(tree.sequencesContaining(new byte[] { 0, 0 }),
+				is(new int[] { 1 }));
+		assertThat(tree.sequencesContaining(new byte[] { -1, 0 }),
+				is(new int[] { 1 }));
+		assertThat(tree.contains(new byte[] { -1, 1 }), is(false));
+	}
+
+	@Test
+	public void intTreeFindsTokenPhrases() {
+		IntSuffixTree tree = new IntSuffixTree(new int[] { 7, 1, 7, 1, 9 });
+		tree.add(new int[] { 1, 9, 1000000 });
+		assertThat(tree.contains(new int[] { 7, 1, 9 }), is(true));
+		assertThat(tree.contains(new int[] { 9, 7 }), is(false));
+		assertThat(tree.sequencesContaining(new int[] { 1, 9 }), is(new int[] {
+				0, 1 }));
+		assertThat(tree.sequencesContaining(new int[] { 1000000 }),
+				is(new int[] { 1 }));
+		assertThat(tree.getSequenceCount(), is(2));
+	}
+
+	@Test
+	public void intTreeFindsChildrenOfNodesWithManyChildren() {
+		IntSuffixTree tree = new IntSuffixTree();
+		for (int i = 1; i <= 100; i++)
+			tree.add(new int[] { 0, i, 0, i * 7 });
+		for (int i = 1; i <= 100; i++) {
+			assertThat(tree.contains(new int[] { 0, i, 0 }), is(true));
+			assertThat(tree.sequencesContaining(new int[] { i, 0, i * 7 }),
+					is(new int[] { i - 1 }));
+		}
+		assertThat(tree.contains(new int[] { 0, 101 }), is(false));
+		assertThat(tree.sequencesContaining(new int[] { 0 }).length, is(100));
+	}
+
+	@Test
+	public void directTreeAgreesWithHeapTree() {
+		Random random = new Random(7);
+		CharSuffixTree heap = new CharSuffixTree();
+		CharSuffixTree direct = new CharSuffixTree(TreeStorage.direct());
+		for (int i = 0; i < 10; i++) {
+			String sequence = TestUtils.randomString(random,
+					20000, "acgt");
+			heap.add(sequence);
+			direct.add(sequence);
+		}
+		assertThat(direct.getNodes().size(), is(heap.getNodes().size()));
+		for (int i = 0; i < 200; i++) {
+			String pattern = TestUtils.randomString(random,
+					6 + random.nextInt(8), "acgt");
+			assertThat(direct.sequencesContaining(pattern),
+					is(heap.sequencesContaining(pattern)));
+		}
+	}
+
+	@Test
+	public void heapPagesStartSmallAndKeepTheirValuesAsTheyGrow() {
+		final TreeStorage heap = TreeStorage.heap();
+		final List<Integer> sizes = new ArrayList<Integer>();
+		TreeStorage storage = new TreeStorage() {
+			@Override
+			ByteBuffer page(String name, int index) {
+				sizes.add(PAGE_BYTES);
+				return heap.page(name, index);
+			}
+
+			@Override
+			ByteBuffer growFirstPage(ByteBuffer page, int bytes) {
+				sizes.add(bytes);
+				return heap.growFirstPage(page, bytes);
+			}
+		};
+		Pages pages = new Pages(storage, "values", 4);
+		pages.ensureCapacity(3);
+		assertThat(sizes, is(Arrays.asList(TreeStorage.FIRST_PAGE_BYTES)));
+		int count = TreeStorage.PAGE_BYTES / 4 + 10;
+		for (int i = 0; i < count; i++) {
+			pages.ensureCapacity(i + 1);
+			pages.setInt(i, i * 7);
+		}
+		for (int i = 0; i < count; i++)
+			assertThat(pages.getInt(i), is(i * 7));
+		assertThat(sizes.size(), is(12));
+		assertThat(sizes.get(10), is(TreeStorage.PAGE_BYTES));
+	}
+
+	@Test
+	public void mappedTreeCanBeReopenedAndExtended() throws Exception {
+		File directory = folder.newFolder("tree");
+		TreeStorage storage = TreeStorage.mapped(directory);
+		IntSuffixTree tree = new IntSuffixTree(storage);
+		for (int i = 1; i <= 100; i++)
+			tree.add(new int[] { 0, i, 0, i * 7 });
+		storage.close();
+
+		storage = TreeStorage.mapped(directory);
+		IntSuffixTree reopened = new IntSuffixTree(storage);
+		assertThat(reopened.getSequenceCount(), is(100));
+		assertThat(reopened.sequencesContaining(new int[] { 5, 0, 35 }),
+				is(new int[] { 4 }));
+		assertThat(reopened.contains(new int[] { 0, 101 }), is(false));
+		assertThat(reopened.add(new int[] { 0, 101 }), is(100));
+		assertThat(reopened.sequencesContaining(new int[] { 0, 101 }),
+				is(new int[] { 100 }));
+		assertThat(reopened.sequencesContaining(new int[] { 0 }).length,
+				is(101));
+		storage.close();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void storageCannotBeReopenedAsADifferentKindOfTree() {
+		File directory = new File(folder.getRoot(), "bytes");
+		TreeStorage storage = TreeStorage.mapped(directory);
+		new ByteSuffixTree(storage).add(new byte[] { 1, 2, 3 });
+		storage.close();
+		new CharSuffixTree(TreeStorage.mapped(directory));
+	}
+
+	@Test
+	public void savedTreeAnswersQueriesAfterLoading() throws Exception {
+		Random random = new Random(11);
+		List<String> sequences = new ArrayList<String>();
+		CharSuffixTree tree = new CharSuffixTree();
+		for (int i = 0; i < 30; i++) {
+			String sequence = TestUtils.randomString(random,
+					1 + random.nextInt(200), "abc");
+			sequences.add(sequence);
+			tree.add(sequence);
+		}
+		File file = folder.newFile("chars.tree");
+		tree.save(file);
+
+		CharSuffixTree loaded = CharSuffixTree.load(file);
+		assertThat(loaded.getSequenceCount(), is(30));
+		for (int i = 0; i < 300; i++) {
+			String pattern = TestUtils.randomString(random,
+					1 + random.nextInt(8), "abcd");
+			assertThat(pattern, loaded.sequencesContaining(pattern),
+					is(TestUtils.sequencesContaining(sequences, pattern)));
+		}
+		loaded.getStorage().close();
+	}
+
+	@Test
+	public void loadedTreeWithManyChildrenAnswersQueriesFromManyThreads()
+			throws Exception {
+		IntSuffixTree tree = new IntSuffixTree();
+		for (int i = 1; i <= 100; i++)
+			tree.add(new int[] { 0, i, 0, i * 7 });
+		File file = folder.newFile("wide.tree");
+		tree.save(file);
+
+		final IntSuffixTree loaded = IntSuffixTree.load(file);
+		final boolean[] failed = new boolean[4];
+		Thread[] threads = new Thread[failed.length];
+		for (int t = 0; t < threads.length; t++) {
+			final int thread = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 1; i <= 100; i++) {
+						if (!loaded.contains(new int[] { 0, i, 0 })
+								|| loaded.sequencesContaining(new int[] { i,
+										0, i * 7 }).length != 1)
+							failed[thread] = true;
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		assertThat(failed, is(new boolean[failed.length]));
+		assertThat(loaded.contains(new int[] { 0, 101 }), is(false));
+		loaded.getStorage().close();
+	}
+
+	@Test
+	public void savedByteTreeKeepsItsTerminals() throws Exception {
+		ByteSuffixTree tree = new ByteSuffixTree(new byte[] { 0, 0, 1 });
+		tree.add(new byte[] { 1, 0 });
+		File file = folder.newFile("bytes.tree");
+		tree.save(file);
+
+		ByteSuffixTree loaded = ByteSuffixTree.load(file);
+		assertThat(loaded.sequencesContaining(new byte[] { 1, 0 }),
+				is(new int[] { 1 }));
+		assertThat(loaded.sequencesContaining(new byte[] { 0 }), is(new int[] {
+				0, 1 }));
+		assertThat(loaded.contains(new byte[] { 1, 0, 0 }), is(false));
+		loaded.getStorage().close();
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void loadedTreeCannotBeChanged() throws Exception {
+		File file = folder.newFile("ints.tree");
+		new IntSuffixTree(new int[] { 1, 2, 3 }).save(file);
+		IntSuffixTree.load(file).add(new int[] { 4 });
+	}
+
+	@Test(expected = IOException.class)
+	public void loadingRejectsOtherFiles() throws Exception {
+		File file = folder.newFile("other.tree");
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(new byte[64]);
+		out.close();
+		CharSuffixTree.load(file);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void intTreeRejectsNegativeItems() {
+		new IntSuffixTree(new int[] { 1, -1 });
+	}
+}
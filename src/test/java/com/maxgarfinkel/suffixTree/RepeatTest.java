@@ -0,0 +1,237 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class RepeatTest {
+
+	@Test
+	public void longestRepeatIsFoundWithinOneSequence() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("banana"));
+		Repeat<Character> repeat = tree.longestRepeatedSubstring();
+		assertThat(asString(repeat), is("ana"));
+		assertThat(repeat.getOccurrenceCount(), is(2));
+		assertThat(repeat.getFirstOccurrence(), is(new Occurrence(0, 1)));
+
+		assertThat(new SuffixTree<Character, Word>(new Word("abc"))
+				.longestRepeatedSubstring(), is(nullValue()));
+	}
+
+	@Test
+	public void longestCommonSubstringNeedsKSequences() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.add(new Word("xabcdy"));
+		tree.add(new Word("zabcdw"));
+		tree.add(new Word("qbcdr"));
+		tree.add(new Word("cd"));
+
+		assertThat(asString(tree.longestCommonSubstring(2)), is("abcd"));
+		assertThat(asString(tree.longestCommonSubstring(3)), is("bcd"));
+		assertThat(asString(tree.longestCommonSubstring(4)), is("cd"));
+		assertThat(tree.longestCommonSubstring(4).getSequenceCount(), is(4));
+		assertThat(tree.longestCommonSubstring(5), is(nullValue()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void longestCommonSubstringOfOneSequenceIsRefused() {
+		new SuffixTree<Character, Word>(new Word("abc")).longestCommonSubstring(1);
+	}
+
+	@Test
+	public void queriesAgreeWithBruteForceOnRandomSequences() {
+		Random random = new Random(17);
+		for (int round = 0; round < 40; round++) {
+			List<String> texts = new ArrayList<String>();
+			SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+			int count = 1 + random.nextInt(4);
+			for (int i = 0; i < count; i++) {
+				StringBuilder text = new StringBuilder();
+				int length = 1 + random.nextInt(30);
+				for (int j = 0; j < length; j++)
+					text.append((char) ('a' + random.nextInt(3)));
+				if (texts.contains(text.toString()))
+					continue;
+				texts.add(text.toString());
+				tree.add(new Word(text.toString()));
+			}
+
+			Repeat<Character> repeat = tree.longestRepeatedSubstring();
+			int longest = 0;
+			for (String substring : substrings(texts)) {
+				if (occurrences(texts, substring) >= 2)
+					longest = Math.max(longest, substring.length());
+			}
+			assertThat(repeat == null ? 0 : repeat.getLength(), is(longest));
+			if (repeat != null)
+				assertThat(occurrences(texts, asString(repeat)), is(repeat
+						.getOccurrenceCount()));
+
+			if (texts.size() >= 2) {
+				int common = 0;
+				for (String substring : substrings(texts)) {
+					if (sequencesContaining(texts, substring) >= 2)
+						common = Math.max(common, substring.length());
+				}
+				Repeat<Character> lcs = tree.longestCommonSubstring(2);
+				assertThat(lcs == null ? 0 : lcs.getLength(), is(common));
+			}
+
+			Set<String> maximal = new HashSet<String>();
+			for (String substring : substrings(texts)) {
+				if (substring.length() >= 2 && isMaximalRepeat(texts, substring))
+					maximal.add(substring);
+			}
+			Set<String> found = new HashSet<String>();
+			int previousLength = Integer.MAX_VALUE;
+			for (Repeat<Character> each : tree.allMaximalRepeats(2)) {
+				found.add(asString(each));
+				assertThat(each.getLength() <= previousLength, is(true));
+				previousLength = each.getLength();
+			}
+			assertThat(found, is(maximal));
+		}
+	}
+
+	@Test
+	public void mostFrequentRunsAreCountedByLength() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.add(new Word("abcabcab"));
+		tree.add(new Word("xbcx"));
+
+		List<String> top = new ArrayList<String>();
+		for (Repeat<Character> each : tree.mostFrequent(4, 2, 3))
+			top.add(asString(each) + each.getOccurrenceCount());
+		assertThat(top.toString(), is("[ab3, bc3, abc2, bca2]"));
+
+		top.clear();
+		for (Repeat<Character> each : tree.mostFrequent(10, 2, 3, 2))
+			top.add(asString(each) + each.getSequenceCount());
+		assertThat(top.toString(), is("[bc2]"));
+	}
+
+	@Test
+	public void mostFrequentAgreesWithBruteForce() {
+		Random random = new Random(29);
+		for (int round = 0; round < 40; round++) {
+			final List<String> texts = new ArrayList<String>();
+			SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+			int count = 1 + random.nextInt(4);
+			for (int i = 0; i < count; i++) {
+				StringBuilder text = new StringBuilder();
+				int length = 1 + random.nextInt(30);
+				for (int j = 0; j < length; j++)
+					text.append((char) ('a' + random.nextInt(3)));
+				if (texts.contains(text.toString()))
+					continue;
+				texts.add(text.toString());
+				tree.add(new Word(text.toString()));
+			}
+			int k = random.nextInt(12);
+			int minLength = 1 + random.nextInt(3);
+			int maxLength = minLength + random.nextInt(4);
+			int minSequences = 1 + random.nextInt(2);
+
+			List<String> expected = new ArrayList<String>();
+			for (String substring : substrings(texts)) {
+				if (substring.length() >= minLength
+						&& substring.length() <= maxLength
+						&& occurrences(texts, substring) >= 2
+						&& sequencesContaining(texts, substring) >= minSequences)
+					expected.add(substring);
+			}
+			Collections.sort(expected, new Comparator<String>() {
+				public int compare(String a, String b) {
+					int first = occurrences(texts, a);
+					int second = occurrences(texts, b);
+					if (first != second)
+						return first > second ? -1 : 1;
+					if (a.length() != b.length())
+						return a.length() > b.length() ? -1 : 1;
+					return firstOccurrence(texts, a).compareTo(
+							firstOccurrence(texts, b));
+				}
+			});
+			expected = expected.subList(0, Math.min(k, expected.size()));
+
+			List<String> found = new ArrayList<String>();
+			for (Repeat<Character> each : tree.mostFrequent(k, minLength,
+					maxLength, minSequences)) {
+				found.add(asString(each));
+				assertThat(each.getOccurrenceCount(), is(occurrences(texts,
+						asString(each))));
+				assertThat(each.getFirstOccurrence(), is(firstOccurrence(texts,
+						asString(each))));
+			}
+			assertThat(found, is(expected));
+		}
+	}
+
+	private static Occurrence firstOccurrence(List<String> texts, String substring) {
+		for (int id = 0; id < texts.size(); id++) {
+			if (texts.get(id).contains(substring))
+				return new Occurrence(id, texts.get(id).indexOf(substring));
+		}
+		return null;
+	}
+
+	private static boolean isMaximalRepeat(List<String> texts, String substring) {
+		if (occurrences(texts, substring) < 2)
+			return false;
+		int count = occurrences(texts, substring);
+		for (char c = 'a'; c <= 'c'; c++) {
+			if (occurrences(texts, c + substring) == count
+					|| occurrences(texts, substring + c) == count)
+				return false;
+		}
+		return true;
+	}
+
+	private static Set<String> substrings(List<String> texts) {
+		Set<String> substrings = new HashSet<String>();
+		for (String text : texts) {
+			for (int i = 0; i < text.length(); i++) {
+				for (int j = i + 1; j <= text.length(); j++)
+					substrings.add(text.substring(i, j));
+			}
+		}
+		return substrings;
+	}
+
+	private static int occurrences(List<String> texts, String substring) {
+		int count = 0;
+		for (String text : texts) {
+			for (int i = text.indexOf(substring); i >= 0; i = text.indexOf(
+					substring, i + 1))
+				count++;
+		}
+		return count;
+	}
+
+	private static int sequencesContaining(List<String> texts, String substring) {
+		int count = 0;
+		for (String text : texts) {
+			if (text.contains(substring))
+				count++;
+		}
+		return count;
+	}
+
+	private static String asString(Repeat<Character> repeat) {
+		StringBuilder sb = new StringBuilder();
+		for (Character c : repeat.getItems())
+			sb.append(c);
+		return sb.toString();
+	}
+}
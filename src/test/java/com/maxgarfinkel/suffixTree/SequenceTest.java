@@ -157,4 +157,34 @@ public class SequenceTest {
 		sequence.add(null);
 	}
 
+	@Test
+	public void equalItemsAndTerminalsShareCodes() {
+		Sequence<Character, Word> sequence = new Sequence<Character, Word>();
+		sequence.add(new Word("abab"));
+		sequence.add(new Word("ba"));
+		sequence.add(new Word("abab"));
+		
+		assertThat(sequence.codeAt(0), is(sequence.codeAt(2)));
+		assertThat(sequence.codeAt(0), is(sequence.codeAt(6)));
+		assertThat(sequence.codeAt(0), is(not(sequence.codeAt(1))));
+		assertThat(sequence.codeAt(4), is(sequence.codeAt(12)));
+		assertThat(sequence.codeAt(4), is(not(sequence.codeAt(7))));
+		assertThat(sequence.codeAt(4) < 0, is(true));
+		assertThat(sequence.lookup('b'), is(sequence.codeAt(1)));
+		assertThat(sequence.lookup('z'), is(SymbolTable.NONE));
+	}
+	
+	@Test
+	public void itemsAreReadAcrossPages() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < Sequence.PAGE_SIZE * 3; i++)
+			text.append((char) ('a' + i % 26));
+		Sequence<Character, Word> sequence = new Sequence<Character, Word>(
+				new Word(text.toString()));
+		
+		assertThat(sequence.getLength(), is(Sequence.PAGE_SIZE * 3 + 1));
+		for (int i = 0; i < text.length(); i++)
+			assertThat((Character) sequence.getItem(i), is(text.charAt(i)));
+	}
+
 }
@@ -0,0 +1,152 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SlidingWindowTest {
+
+	@Test
+	public void windowAgreesWithBruteForceAsItSlides() {
+		TestUtils.checkRandomTrees(13, 20, 20, 12, "ab", 40, 4,
+				new TestUtils.RandomCheck() {
+					/**
+					 * Keeps the newest six texts.
+					 */
+					void add(String text) {
+						super.add(text);
+						if (texts.size() > 6) {
+							int firstId = tree.getSequence().getFirstSequenceId();
+							assertThat(tree.removeOldest(), is(firstId));
+							texts.remove(0);
+						}
+					}
+
+					void check(String pattern) {
+						int firstId = tree.getSequence().getFirstSequenceId();
+						List<Occurrence> expected = new ArrayList<Occurrence>();
+						for (Occurrence occurrence : TestUtils.occurrences(texts,
+								pattern))
+							expected.add(new Occurrence(occurrence.getSequenceId()
+									+ firstId, occurrence.getOffset()));
+						Word word = new Word(pattern);
+						assertThat(pattern, tree.locate(word), is(expected));
+						assertThat(pattern, tree.countOccurrences(word),
+								is(expected.size()));
+						assertThat(pattern, tree.contains(word),
+								is(!expected.isEmpty()));
+						assertThat(pattern, tree.countSequencesContaining(word),
+								is(TestUtils.sequencesContaining(texts, pattern).length));
+					}
+				});
+	}
+
+	@Test
+	public void removalLeavesTheTreeABuildWouldMake() {
+		Random random = new Random(17);
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		List<String> window = new ArrayList<String>();
+		for (int step = 0; step < 200; step++) {
+			String sequence = step + ":"
+					+ TestUtils.randomString(random, 30, "acgt");
+			window.add(sequence);
+			tree.add(new Word(sequence));
+			if (window.size() > 10) {
+				tree.removeOldest();
+				window.remove(0);
+			}
+		}
+		SuffixTree<Character, Word> rebuilt = new SuffixTree<Character, Word>();
+		for (String sequence : window)
+			rebuilt.add(new Word(sequence));
+		assertThat(countNodes(tree), is(countNodes(rebuilt)));
+		assertThat(tree.getSequence().getFirstPosition(), is(tree.getSequence()
+				.getSequenceStart(190)));
+	}
+
+	@Test
+	public void codesOfRemovedItemsAreReused() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		long symbolBytes = 0;
+		for (int step = 0; step < 2000; step++) {
+			char first = (char) ('A' + step);
+			char second = (char) ('A' + step + 1);
+			tree.add(new Word("" + first + second + first));
+			if (step >= 3)
+				tree.removeOldest();
+			if (step == 100)
+				symbolBytes = tree.memoryReport().getSymbolBytes();
+			assertThat(tree.getSequence().getSymbolCount() <= 5, is(true));
+		}
+		assertThat(tree.memoryReport().getSymbolBytes(), is(symbolBytes));
+		char last = (char) ('A' + 1999);
+		assertThat(tree.contains(new Word("" + last + (char) (last + 1))),
+				is(true));
+		assertThat(tree.contains(new Word("" + (char) ('A' + 1995))), is(false));
+		assertThat(tree.locate(new Word("" + (char) ('A' + 1997))),
+				is(Arrays.asList(new Occurrence(1997, 0), new Occurrence(1997,
+						2))));
+	}
+
+	@Test
+	public void removedSequenceHandsItsLeavesToAnEqualOne() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.add(new Word("abab"));
+		tree.add(new Word("bab"));
+		tree.add(new Word("abab"));
+		assertThat(tree.removeOldest(), is(0));
+		assertThat(tree.locate(new Word("ab")), is(Arrays.asList(new Occurrence(
+				1, 1), new Occurrence(2, 0), new Occurrence(2, 2))));
+		assertThat(tree.removeOldest(), is(1));
+		assertThat(tree.countSequencesContaining(new Word("bab")), is(1));
+		assertThat(tree.removeOldest(), is(2));
+		assertThat(tree.contains(new Word("a")), is(false));
+		tree.add(new Word("ba"));
+		assertThat(tree.locate(new Word("a")), is(Arrays.asList(new Occurrence(
+				3, 1))));
+	}
+
+	@Test
+	public void frozenTreeKeepsTheIdsOfTheWindow() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.add(new Word("banana"));
+		tree.add(new Word("bandana"));
+		tree.add(new Word("cabana"));
+		tree.removeOldest();
+		FrozenSuffixTree<Character, Word> frozen = tree.freeze();
+		assertThat(frozen.getSequenceCount(), is(2));
+		assertThat(frozen.locate(new Word("ana")), is(Arrays.asList(
+				new Occurrence(1, 4), new Occurrence(2, 3))));
+		assertThat(frozen.contains(new Word("nan")), is(false));
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void emptyTreeHasNothingToRemove() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.add(new Word("a"));
+		tree.removeOldest();
+		tree.removeOldest();
+	}
+
+	private static int countNodes(SuffixTree<Character, Word> tree) {
+		List<Node<Character, Word>> nodes = new ArrayList<Node<Character, Word>>();
+		nodes.add(tree.getRoot());
+		int count = 0;
+		while (!nodes.isEmpty()) {
+			Node<Character, Word> node = nodes.remove(nodes.size() - 1);
+			count++;
+			for (Edge<Character, Word> edge : node) {
+				if (edge.getTerminal() != null)
+					nodes.add(edge.getTerminal());
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,104 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StreamingAppendTest {
+
+	@Test
+	public void streamedSequencesAgreeWithBruteForce() {
+		TestUtils.checkRandomTrees(5, 20, 15, 40, "abc", 50, 5,
+				new TestUtils.RandomCheck() {
+					/**
+					 * Streams every other text in chunks.
+					 */
+					void add(String text) {
+						if (texts.size() % 2 == 1) {
+							tree.add(new Word(text));
+							return;
+						}
+						assertThat(tree.openSequence(), is(texts.size() - 1));
+						int at = 0;
+						while (at < text.length()) {
+							int chunk = Math.min(text.length() - at,
+									1 + random.nextInt(7));
+							tree.appendAll(new Word(text.substring(at, at + chunk)));
+							at += chunk;
+						}
+						assertThat(tree.closeSequence(), is(texts.size() - 1));
+					}
+
+					/**
+					 * Marks the streamed texts to keep them apart from equal
+					 * ones, as they never share leaves.
+					 */
+					void check(String pattern) {
+						List<String> distinct = new ArrayList<String>(texts);
+						for (int id = 1; id < distinct.size(); id += 2)
+							distinct.set(id, distinct.get(id) + "#" + id);
+						List<Occurrence> expected = TestUtils.occurrences(distinct,
+								pattern);
+						Word word = new Word(pattern);
+						assertThat(pattern, tree.locate(word), is(expected));
+						assertThat(pattern, tree.countOccurrences(word),
+								is(expected.size()));
+						assertThat(pattern, tree.countSequencesContaining(word),
+								is(TestUtils.sequencesContaining(distinct, pattern).length));
+					}
+				});
+	}
+
+	@Test
+	public void openSequenceCanBeQueriedAsItGrows() {
+		String text = "mississippi";
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("river"));
+		tree.openSequence();
+		for (int end = 1; end <= text.length(); end++) {
+			tree.append(text.charAt(end - 1));
+			for (int i = 0; i < end; i++) {
+				for (int j = i + 1; j <= end; j++)
+					assertThat(tree.contains(new Word(text.substring(i, j))),
+							is(true));
+			}
+			assertThat(tree.contains(new Word(text.substring(0, end) + "x")),
+					is(false));
+		}
+		assertThat(tree.contains(new Word("rm")), is(false));
+		tree.closeSequence();
+		assertThat(tree.isSequenceOpen(), is(false));
+		assertThat(tree.locate(new Word("ss")), is(Arrays.asList(new Occurrence(
+				1, 2), new Occurrence(1, 5))));
+	}
+
+	@Test
+	public void equalStreamedSequencesAreKeptApart() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		for (int i = 0; i < 2; i++) {
+			tree.openSequence();
+			tree.appendAll(new Word("abc"));
+			tree.closeSequence();
+		}
+		assertThat(tree.countSequencesContaining(new Word("abc")), is(2));
+		assertThat(tree.locate(new Word("bc")), is(Arrays.asList(new Occurrence(
+				0, 1), new Occurrence(1, 1))));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void appendingNeedsAnOpenSequence() {
+		new SuffixTree<Character, Word>().append('a');
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void addingWhileASequenceIsOpenIsRejected() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.openSequence();
+		tree.add(new Word("abc"));
+	}
+}
@@ -0,0 +1,137 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SuffixArrayTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void bananaGivesTheTextbookArrays() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("banana"));
+		int[] suffixes = new int[tree.getSuffixArrayLength()];
+		int[] lcp = new int[suffixes.length];
+		tree.writeSuffixArray(null, IntBuffer.wrap(suffixes), IntBuffer.wrap(lcp));
+		assertThat(suffixes, is(new int[] { 6, 5, 3, 1, 0, 4, 2 }));
+		assertThat(lcp, is(new int[] { 0, 0, 1, 3, 0, 0, 2 }));
+	}
+
+	@Test
+	public void arraysAgreeWithSortedSuffixes() {
+		TestUtils.checkRandomTrees(11, 40, 5, 20, "abc", 0, 1,
+				new TestUtils.RandomCheck() {
+					void check(List<String> patterns) {
+						if (texts.size() > 1 && random.nextBoolean()) {
+							tree.removeOldest();
+							texts.remove(0);
+						}
+						SuffixArrayTest.check(tree, texts, null);
+						SuffixArrayTest.check(tree, texts,
+								Collections.<Character> reverseOrder());
+					}
+				});
+	}
+
+	@Test
+	public void arraysAreWrittenToFiles() throws IOException {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.add(new Word("mississippi"));
+		tree.add(new Word("missouri"));
+		int[] suffixes = new int[tree.getSuffixArrayLength()];
+		int[] lcp = new int[suffixes.length];
+		tree.writeSuffixArray(null, IntBuffer.wrap(suffixes), IntBuffer.wrap(lcp));
+
+		File suffixFile = folder.newFile("suffixes");
+		File lcpFile = folder.newFile("lcp");
+		tree.writeSuffixArray(null, suffixFile, lcpFile);
+		assertThat(read(suffixFile), is(suffixes));
+		assertThat(read(lcpFile), is(lcp));
+	}
+
+	private static int[] read(File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			IntBuffer buffer = input.getChannel()
+					.map(FileChannel.MapMode.READ_ONLY, 0, input.length())
+					.order(ByteOrder.nativeOrder()).asIntBuffer();
+			int[] values = new int[buffer.remaining()];
+			buffer.get(values);
+			return values;
+		} finally {
+			input.close();
+		}
+	}
+
+	private static void check(SuffixTree<Character, Word> tree,
+			final List<String> texts, final Comparator<Character> order) {
+		final List<int[]> all = new ArrayList<int[]>();
+		final int[] starts = new int[texts.size() + 1];
+		final int[] canonical = new int[texts.size()];
+		for (int k = 0; k < texts.size(); k++) {
+			starts[k + 1] = starts[k] + texts.get(k).length() + 1;
+			canonical[k] = texts.indexOf(texts.get(k));
+			for (int i = 0; i <= texts.get(k).length(); i++)
+				all.add(new int[] { k, i });
+		}
+		Collections.sort(all, new Comparator<int[]>() {
+			public int compare(int[] a, int[] b) {
+				String x = texts.get(a[0]).substring(a[1]);
+				String y = texts.get(b[0]).substring(b[1]);
+				for (int i = 0;; i++) {
+					boolean xEnds = i == x.length();
+					boolean yEnds = i == y.length();
+					if (xEnds || yEnds) {
+						if (!xEnds)
+							return 1;
+						if (!yEnds)
+							return -1;
+						if (canonical[a[0]] != canonical[b[0]])
+							return canonical[a[0]] - canonical[b[0]];
+						return a[0] - b[0];
+					}
+					int c = order == null ? x.charAt(i) - y.charAt(i) : order
+							.compare(x.charAt(i), y.charAt(i));
+					if (c != 0)
+						return c;
+				}
+			}
+		});
+		int[] expectedSuffixes = new int[all.size()];
+		int[] expectedLcp = new int[all.size()];
+		for (int i = 0; i < all.size(); i++) {
+			int[] suffix = all.get(i);
+			expectedSuffixes[i] = starts[suffix[0]] + suffix[1];
+			if (i > 0) {
+				String x = texts.get(all.get(i - 1)[0]).substring(all.get(i - 1)[1]);
+				String y = texts.get(suffix[0]).substring(suffix[1]);
+				while (expectedLcp[i] < Math.min(x.length(), y.length())
+						&& x.charAt(expectedLcp[i]) == y.charAt(expectedLcp[i]))
+					expectedLcp[i]++;
+			}
+		}
+		int[] suffixes = new int[tree.getSuffixArrayLength()];
+		int[] lcp = new int[suffixes.length];
+		tree.writeSuffixArray(order, IntBuffer.wrap(suffixes), IntBuffer.wrap(lcp));
+		assertThat(texts + " " + Arrays.toString(suffixes), suffixes, is(expectedSuffixes));
+		assertThat(lcp, is(expectedLcp));
+	}
+}
@@ -0,0 +1,95 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SuffixTreeSearchTest {
+
+	@Test
+	public void containsFindsEverySubstring() {
+		String text = "mississippi";
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word(text));
+		for (int i = 0; i < text.length(); i++) {
+			for (int j = i + 1; j <= text.length(); j++)
+				assertThat(tree.contains(new Word(text.substring(i, j))), is(true));
+		}
+		assertThat(tree.contains(new Word("ssp")), is(false));
+		assertThat(tree.contains(new Word("mississippis")), is(false));
+		assertThat(tree.contains(new Word("")), is(true));
+	}
+
+	@Test
+	public void countAndLocateFindEveryOccurrence() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("mississippi"));
+		tree.add(new Word("sister"));
+		assertThat(tree.countOccurrences(new Word("ss")), is(2));
+		assertThat(tree.countOccurrences(new Word("is")), is(3));
+		assertThat(tree.locate(new Word("is")), is(Arrays.asList(
+				new Occurrence(0, 1), new Occurrence(0, 4), new Occurrence(1, 1))));
+		assertThat(tree.countOccurrences(new Word("sit")), is(0));
+		assertThat(tree.locate(new Word("sit")).isEmpty(), is(true));
+		assertThat(tree.countOccurrences(new Word("")), is(0));
+	}
+
+	@Test
+	public void countIsUpdatedWhenSequencesAreAdded() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("abab"));
+		assertThat(tree.countOccurrences(new Word("ab")), is(2));
+		tree.add(new Word("cab"));
+		assertThat(tree.countOccurrences(new Word("ab")), is(3));
+	}
+
+	@Test
+	public void everySuffixOfLaterSequencesIsALeaf() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.add(new Word("baaa"));
+		tree.add(new Word("babaaa"));
+		tree.add(new Word("aaaab"));
+		assertThat(tree.countOccurrences(new Word("aaab")), is(1));
+		assertThat(tree.locate(new Word("aab")), is(Arrays.asList(new Occurrence(
+				2, 2))));
+		assertThat(tree.countOccurrences(new Word("a")), is(11));
+	}
+
+	@Test
+	public void searchesAgreeWithBruteForceOnRandomSequences() {
+		TestUtils.checkRandomTrees(3, 20, 15, 40, "abc", 50, 5,
+				new TestUtils.RandomCheck() {
+					void check(String pattern) {
+						List<Occurrence> expected = TestUtils.occurrences(texts,
+								pattern);
+						Word word = new Word(pattern);
+						assertThat(pattern, tree.locate(word), is(expected));
+						assertThat(pattern, tree.countOccurrences(word),
+								is(expected.size()));
+						assertThat(pattern, tree.contains(word),
+								is(!expected.isEmpty()));
+						assertThat(pattern, tree.countSequencesContaining(word),
+								is(TestUtils.sequencesContaining(texts, pattern).length));
+					}
+				});
+	}
+
+	@Test
+	public void countSequencesContainingCountsEachSequenceOnce() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>(
+				new Word("banana"));
+		tree.add(new Word("ananas"));
+		tree.add(new Word("bandana"));
+		assertThat(tree.countOccurrences(new Word("ana")), is(5));
+		assertThat(tree.countSequencesContaining(new Word("ana")), is(3));
+		assertThat(tree.countSequencesContaining(new Word("nan")), is(2));
+		assertThat(tree.countSequencesContaining(new Word("nas")), is(1));
+		assertThat(tree.countSequencesContaining(new Word("x")), is(0));
+		tree.add(new Word("cabana"));
+		assertThat(tree.countSequencesContaining(new Word("ana")), is(4));
+	}
+}
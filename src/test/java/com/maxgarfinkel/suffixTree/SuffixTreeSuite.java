@@ -14,7 +14,24 @@ import org.junit.runners.Suite.SuiteClasses;
 				SuffixTest.class,
 				SuffixTreeTest.class, 
 				GeneralisedSuffixTreeTests.class,
-				CursorTest.class})
+				CursorTest.class,
+				PrimitiveSuffixTreeTest.class,
+				SuffixTreeSearchTest.class,
+				BatchSearchTest.class,
+				FrozenSuffixTreeTest.class,
+				ParallelSuffixTreeBuilderTest.class,
+				StreamingAppendTest.class,
+				SlidingWindowTest.class,
+				NodeTest.class,
+				PhraseIndexTest.class,
+				RepeatTest.class,
+				MatchingStatisticsTest.class,
+				SuffixArrayTest.class,
+				EnhancedSuffixArrayTest.class,
+				ApproximateSearchTest.class,
+				WildcardPatternTest.class,
+				BuildStatisticsTest.class,
+				MemoryReportTest.class})
 
 public class SuffixTreeSuite {
 
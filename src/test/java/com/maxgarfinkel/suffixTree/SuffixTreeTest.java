@@ -509,4 +509,19 @@ public class SuffixTreeTest {
 		TestUtils.everySuffixReachableFromRoot(word, tree);
 		
 	}
+	
+	@Test
+	public void longRepetitiveSequenceDoesNotRecursePerRemainingSuffix(){
+		logger.debug("Long Repetitive Sequence Does Not Recurse Per Remaining Suffix");
+		logger.setLevel(Level.INFO);
+		char[] chars = new char[20000];
+		Arrays.fill(chars, 'o');
+		Word word = new Word(new String(chars));
+		SuffixTree<Character,Word> tree = new SuffixTree<Character, Word>(word);
+		Node<Character, Word> root = tree.getRoot();
+		assertThat(root.getEdgeCount(), is(2));
+		Edge<Character, Word> edgeO = root.getEdgeStarting('o');
+		assertThat(edgeO.getLength(), is(1));
+		assertThat(edgeO.getTerminal().getEdgeCount(), is(2));
+	}
 }
@@ -4,7 +4,10 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Random;
 
 import org.apache.log4j.Logger;
 
@@ -34,4 +37,136 @@ public class TestUtils {
 			assertThat(seqTermCollection, hasItem(terminal));
 		}
 	}
+
+	static String randomString(Random random, int length, String alphabet) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++)
+			sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		return sb.toString();
+	}
+
+	/**
+	 * Lists the ids of the sequences containing a pattern. A sequence equal
+	 * to an earlier one is left out, as a tree reports its occurrences under
+	 * the earlier id.
+	 */
+	static int[] sequencesContaining(List<String> sequences, String pattern) {
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int i = 0; i < sequences.size(); i++) {
+			if (sequences.indexOf(sequences.get(i)) == i
+					&& sequences.get(i).contains(pattern))
+				ids.add(i);
+		}
+		int[] result = new int[ids.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = ids.get(i);
+		return result;
+	}
+
+	/**
+	 * Lists every occurrence of a pattern, leaving out sequences equal to an
+	 * earlier one as {@link #sequencesContaining(List, String)} does.
+	 */
+	static List<Occurrence> occurrences(List<String> sequences, String pattern) {
+		List<Occurrence> occurrences = new ArrayList<Occurrence>();
+		for (int i = 0; i < sequences.size(); i++) {
+			if (sequences.indexOf(sequences.get(i)) != i)
+				continue;
+			for (int at = sequences.get(i).indexOf(pattern); at >= 0; at = sequences
+					.get(i).indexOf(pattern, at + 1))
+				occurrences.add(new Occurrence(i, at));
+		}
+		return occurrences;
+	}
+
+	/**
+	 * Runs a check against rounds of random trees. Each round adds up to the
+	 * given number of texts to a new tree, one in five of them a repeat of an
+	 * earlier text, and then checks random patterns. Half of the patterns are
+	 * taken from the texts, so that most of them occur, and the rest are
+	 * drawn from the alphabet and the letter after it, which no text holds.
+	 * 
+	 * @param seed
+	 *            The seed of the random texts and patterns.
+	 * @param rounds
+	 *            The number of trees to build.
+	 * @param sequences
+	 *            The largest number of texts in a tree.
+	 * @param length
+	 *            The longest text.
+	 * @param alphabet
+	 *            The letters of the texts.
+	 * @param patterns
+	 *            The number of patterns checked against each tree.
+	 * @param patternLength
+	 *            The longest pattern.
+	 * @param check
+	 *            The check to run.
+	 */
+	static void checkRandomTrees(long seed, int rounds, int sequences,
+			int length, String alphabet, int patterns, int patternLength,
+			RandomCheck check) {
+		Random random = new Random(seed);
+		String letters = alphabet
+				+ (char) (alphabet.charAt(alphabet.length() - 1) + 1);
+		check.random = random;
+		for (int round = 0; round < rounds; round++) {
+			check.texts = new ArrayList<String>();
+			check.tree = new SuffixTree<Character, Word>();
+			int count = 1 + random.nextInt(sequences);
+			for (int i = 0; i < count; i++) {
+				String text = i > 0 && random.nextInt(5) == 0 ? check.texts
+						.get(random.nextInt(check.texts.size())) : randomString(
+						random, random.nextInt(length + 1), alphabet);
+				check.texts.add(text);
+				check.add(text);
+			}
+			List<String> drawn = new ArrayList<String>();
+			for (int i = 0; i < patterns; i++) {
+				String text = check.texts.get(random.nextInt(check.texts.size()));
+				int patternSize = 1 + random.nextInt(patternLength);
+				if (random.nextBoolean() && text.length() >= patternSize) {
+					int from = random.nextInt(text.length() - patternSize + 1);
+					drawn.add(text.substring(from, from + patternSize));
+				} else {
+					drawn.add(randomString(random, patternSize, letters));
+				}
+			}
+			check.check(drawn);
+		}
+	}
+
+	/**
+	 * A check run by {@link TestUtils#checkRandomTrees} on each of its random
+	 * trees. The texts and tree of the round are set before the texts are
+	 * added.
+	 */
+	static abstract class RandomCheck {
+
+		Random random;
+		List<String> texts;
+		SuffixTree<Character, Word> tree;
+
+		/**
+		 * Adds a text to the tree once it has been listed in the texts.
+		 * Overridden by checks which build the tree in another way.
+		 */
+		void add(String text) {
+			tree.add(new Word(text));
+		}
+
+		/**
+		 * Checks all of a round's patterns, one at a time unless overridden.
+		 */
+		void check(List<String> patterns) {
+			for (String pattern : patterns)
+				check(pattern);
+		}
+
+		/**
+		 * Checks one pattern against the tree.
+		 */
+		void check(String pattern) {
+		}
+	}
 }
@@ -0,0 +1,119 @@
+package com.maxgarfinkel.suffixTree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class WildcardPatternTest {
+
+	@Test
+	public void findsWildcardsClassesAndGaps() {
+		SuffixTree<Character, Word> tree = new SuffixTree<Character, Word>();
+		tree.add(new Word("ERROR-42-timeout at db"));
+		tree.add(new Word("ERRAR-7-timeout"));
+		tree.add(new Word("ERR-x-timeout"));
+
+		List<Occurrence> expected = new ArrayList<Occurrence>();
+		expected.add(new Occurrence(0, 0));
+		expected.add(new Occurrence(1, 0));
+		assertThat(tree.locateMatching(WildcardPattern
+				.compile("ERR?R-[0-9]*-timeout")), is(expected));
+		assertThat(tree.locateMatching(WildcardPattern
+				.compile("-[0-9]{1,2}-")), is(expected(0, 5, 1, 5)));
+		assertThat(tree.locateMatching(WildcardPattern.compile("R-?{1,2}-t")),
+				is(expected(0, 4, 1, 4, 2, 2)));
+		assertThat(tree.locateMatching(WildcardPattern.compile("[!A-Z-]{2}")),
+				is(expected(0, 6, 0, 9, 0, 10, 0, 11, 0, 12, 0, 13, 0, 14, 0,
+						15, 0, 16, 0, 17, 0, 18, 0, 19, 0, 20, 1, 8, 1, 9, 1, 10,
+						1, 11, 1, 12, 1, 13, 2, 6, 2, 7, 2, 8, 2, 9, 2, 10, 2, 11)));
+		assertThat(tree.locateMatching(WildcardPattern.compile("\\*")).size(),
+				is(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unclosedClassIsRejected() {
+		WildcardPattern.compile("ERR[0-9");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void repeatOfStarIsRejected() {
+		WildcardPattern.compile("a*{2}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void hugeRepeatIsRejected() {
+		WildcardPattern.compile("a{2147483647}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void hugeOpenRepeatIsRejected() {
+		WildcardPattern.compile("a{2147483647,}");
+	}
+
+	@Test
+	public void matchesAgreeWithRegularExpressions() {
+		TestUtils.checkRandomTrees(3, 150, 3, 30, "abc", 2, 4,
+				new TestUtils.RandomCheck() {
+					void check(String pattern) {
+						StringBuilder glob = new StringBuilder();
+						StringBuilder regex = new StringBuilder();
+						for (int i = 0; i < pattern.length(); i++) {
+							switch (random.nextInt(5)) {
+							case 0:
+								glob.append('?');
+								regex.append('.');
+								break;
+							case 1:
+								glob.append('*');
+								regex.append(".*");
+								continue;
+							case 2:
+								glob.append("[!a]");
+								regex.append("[^a]");
+								break;
+							default:
+								glob.append(pattern.charAt(i));
+								regex.append(pattern.charAt(i));
+							}
+							if (random.nextInt(3) == 0) {
+								int min = random.nextInt(3);
+								String bounds = random.nextBoolean() ? "{" + min
+										+ "}" : "{" + min + ","
+										+ (min + random.nextInt(3)) + "}";
+								glob.append(bounds);
+								regex.append(bounds);
+							}
+						}
+						Pattern compiled = Pattern.compile(regex.toString());
+						List<Occurrence> expected = new ArrayList<Occurrence>();
+						for (int id = 0; id < texts.size(); id++) {
+							String text = texts.get(id);
+							for (int start = 0; texts.indexOf(text) == id
+									&& start < text.length(); start++) {
+								for (int end = start + 1; end <= text.length(); end++) {
+									if (compiled.matcher(text.substring(start, end))
+											.matches()) {
+										expected.add(new Occurrence(id, start));
+										break;
+									}
+								}
+							}
+						}
+						assertThat(glob.toString(), tree.locateMatching(WildcardPattern
+								.compile(glob.toString())), is(expected));
+					}
+				});
+	}
+
+	private static List<Occurrence> expected(int... pairs) {
+		List<Occurrence> occurrences = new ArrayList<Occurrence>();
+		for (int i = 0; i < pairs.length; i += 2)
+			occurrences.add(new Occurrence(pairs[i], pairs[i + 1]));
+		return occurrences;
+	}
+}